@@ -0,0 +1,130 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * The AliasTable picks one of n outcomes at random in proportion to their weights, in the same time however many
+ * outcomes there are.<p>
+ * It is built once with Vose's alias method: the outcomes are spread over n equally likely columns, each holding at
+ * most two outcomes, one with a cut-off probability and an alias that takes the rest of the column. A sample then
+ * takes one random double: its whole part, scaled by n, picks the column and its fraction picks between the column's
+ * two outcomes.<p>
+ * When every weight is the same, every column holds one outcome and a sample is exactly
+ * <code>(int) (rng.nextDouble() * n)</code>, so games rolled with equal weights come out the same as ever.
+ */
+
+public class AliasTable {
+    // instance variables
+    private final double[] weights;
+    private final double totalWeight;
+    private final double[] cutoffs;
+    private final int[] aliases;
+
+    /**
+     * @param weights The weight of each outcome. Weights may be 0, but not negative, and not all 0.
+     * @throws IllegalArgumentException If there are no outcomes or the weights cannot be sampled from.
+     */
+    public AliasTable(double... weights) {
+        int n = weights.length;
+        double total = 0;
+        for (double weight : weights) {
+            if (!(weight >= 0) || Double.isInfinite(weight))
+                throw new IllegalArgumentException("Bad weight: " + weight);
+            total += weight;
+        }
+        if (n == 0 || !(total > 0) || Double.isInfinite(total))
+            throw new IllegalArgumentException("Weights must add up to a positive number: " + Arrays.toString(weights));
+        this.weights = weights.clone();
+        totalWeight = total;
+        cutoffs = new double[n];
+        aliases = new int[n];
+
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1)
+                small[smallCount++] = i;
+            else
+                large[largeCount++] = i;
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            cutoffs[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1)
+                small[smallCount++] = more;
+            else
+                large[largeCount++] = more;
+        }
+        // whatever is left over is only short of 1 by rounding
+        while (largeCount > 0) {
+            int i = large[--largeCount];
+            cutoffs[i] = 1;
+            aliases[i] = i;
+        }
+        while (smallCount > 0) {
+            int i = small[--smallCount];
+            cutoffs[i] = 1;
+            aliases[i] = i;
+        }
+    }
+
+    /**
+     * @param size The number of outcomes.
+     * @return A table in which every outcome is equally likely.
+     */
+    public static AliasTable uniform(int size) {
+        double[] weights = new double[size];
+        Arrays.fill(weights, 1);
+        return new AliasTable(weights);
+    }
+
+    /**
+     * @return The number of outcomes.
+     */
+    public int size() {
+        return weights.length;
+    }
+
+    /**
+     * @param outcome An outcome.
+     * @return The weight it was given.
+     */
+    public double getWeight(int outcome) {
+        return weights[outcome];
+    }
+
+    /**
+     * @return The weights of all outcomes added up.
+     */
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * Picks an outcome, taking exactly one double from the generator.
+     *
+     * @param rng The source of random numbers.
+     * @return The outcome, from 0 to size() - 1.
+     */
+    public int sample(RandomGenerator rng) {
+        return sample(rng.nextDouble());
+    }
+
+    /**
+     * Picks the outcome for a random double that has already been drawn.
+     *
+     * @param random A double from 0 (inclusive) to 1 (exclusive).
+     * @return The outcome, from 0 to size() - 1.
+     */
+    public int sample(double random) {
+        double scaled = random * cutoffs.length;
+        int column = Math.min((int) scaled, cutoffs.length - 1);
+        return scaled - column < cutoffs[column] ? column : aliases[column];
+    }
+}
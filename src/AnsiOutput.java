@@ -0,0 +1,67 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * The AnsiOutput shows the game in a terminal, coloring the text with ANSI escape sequences.<p>
+ * It is the window for servers and terminals without a display: nothing in it touches AWT or Swing.
+ * A turn's text is buffered and written in one piece when the turn is flushed, switching color only where the
+ * color changes and going back to the terminal's own color before the player types. Clearing the display
+ * clears the terminal screen.
+ */
+
+public class AnsiOutput implements OutputSink {
+    // static variables
+    private static final String RESET = "\u001b[0m";
+    private static final String CLEAR_SCREEN = "\u001b[H\u001b[2J";
+
+    // instance variables
+    private final Writer out;
+    private final StringBuilder turn;
+    private TextColor color;
+    private boolean clearPending;
+
+    /**
+     * @param out The terminal the game is written to.
+     */
+    public AnsiOutput(Writer out) {
+        this.out = out;
+        turn = new StringBuilder();
+    }
+
+    @Override
+    public void addTextToWindow(String text, TextColor color) {
+        if (color != this.color) {
+            turn.append(color.getAnsi());
+            this.color = color;
+        }
+        turn.append(text);
+    }
+
+    @Override
+    public void clear() {
+        turn.setLength(0);
+        color = null;
+        clearPending = true;
+    }
+
+    @Override
+    public void flush() {
+        try {
+            if (clearPending) {
+                out.write(CLEAR_SCREEN);
+                clearPending = false;
+            }
+            if (!turn.isEmpty()) {
+                out.append(turn);
+                out.write(RESET);
+                turn.setLength(0);
+                color = null;
+            }
+            out.flush();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * The Benchmarks class times the game's hot paths and measures how much each one allocates.<p>
+ * It follows JMH's method without depending on it (JMH cannot load benchmarks from the default package, which is
+ * where the game lives). Every benchmark runs in FORKS fresh JVMs of its own, so no benchmark inherits another's
+ * JIT profile; in each fork it is warmed up and then run for a fixed time in several measurement rounds, and the
+ * median of the forks' best rounds is reported. Every result is consumed, so the JIT cannot remove the work.
+ * Time is reported per operation, and allocation is reported in bytes per operation using the
+ * JVM's per-thread allocation counter (the same figure JMH's gc profiler reports as gc.alloc.rate.norm).<p>
+ * Results can be compared against a saved baseline, in which case any benchmark that got more than
+ * 50% and SLOWDOWN_FLOOR nanoseconds slower, or that allocates more than before, is reported and the run exits with
+ * status 1. The limits are wide on purpose: the same code can be JIT-compiled differently from one JVM to the
+ * next, so a benchmark of a few nanoseconds can come out twice as slow, and only a real regression should fail
+ * the run. A run checked against the baseline it just saved passes.<p>
+ * Benchmarks listed in ALLOCATION_FREE must not allocate at all, baseline or not; the headless turn is one,
+ * so soak sessions can run for days without the garbage collector. SoakCheck checks the same turns on its own,
+ * in a second or so, and reports the kinds of turn that are allowed to allocate.
+ */
+
+public class Benchmarks {
+    // static variables
+    private static final long WARMUP_NANOS = 1_000_000_000L;
+    private static final long ROUND_NANOS = 500_000_000L;
+    private static final int ROUNDS = 5;
+    private static final int FORKS = 5;
+    private static final double SLOWDOWN_LIMIT = 1.5;
+    private static final double SLOWDOWN_FLOOR = 5;
+    private static final double ALLOCATION_SLACK = 8;
+    private static final double ALLOCATION_NOISE = 0.5;
+    private static final Set<String> ALLOCATION_FREE = Set.of("TreasureHunter.playTurn (headless)");
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * The measured cost of one benchmark.
+     */
+    private record Result(double nanosPerOp, double bytesPerOp) { }
+
+    private static long blackhole;
+    private static final Object[] SINK = new Object[16];
+
+    /**
+     * Each benchmark is given a running operation number, which it uses to vary its input
+     * so the JIT cannot fold the work away.
+     *
+     * @return The benchmarks to run, by name, in the order they are run.
+     */
+    private static Map<String, LongUnaryOperator> benchmarks() {
+        Map<String, LongUnaryOperator> benchmarks = new LinkedHashMap<>();
+        Item[] items = Item.values();
+        String[] names = new String[items.length];
+        for (Item item : items)
+            names[item.ordinal()] = item.getName();
+        Difficulty difficulty = Difficulty.NORMAL;
+        SplittableRandom rng = new SplittableRandom(42);
+
+        Hunter hunter = new Hunter("bench", 1_000_000, NullOutput.INSTANCE);
+        hunter.addItemToKit(Item.ROPE);
+        hunter.addItemToKit(Item.HORSE);
+        hunter.addItemToKit(Item.SHOVEL);
+        benchmarks.put("Hunter.hasItemInKit", i -> hunter.hasItemInKit(items[(int) (i & 7)]) ? 1 : 0);
+
+        benchmarks.put("Hunter.buyItem+sellItem", i -> {
+            Item item = items[(int) (i & 7)];
+            if (hunter.buyItem(item, 2))
+                hunter.sellItem(item, 2);
+            return hunter.getGold();
+        });
+
+        Shop shop = new Shop(difficulty.getPrices());
+        benchmarks.put("Shop.checkMarketPrice(String)", i -> shop.checkMarketPrice(names[(int) (i & 7)], (i & 8) == 0));
+        benchmarks.put("Shop.checkMarketPrice(Item)", i -> shop.checkMarketPrice(items[(int) (i & 7)], (i & 8) == 0));
+
+        Market market = new Market(difficulty);
+        Shop marketShop = new Shop(market);
+        benchmarks.put("Shop(Market).checkMarketPrice", i -> marketShop.checkMarketPrice(items[(int) (i & 7)], (i & 8) == 0));
+        benchmarks.put("Market.recordBuy", i -> {
+            market.recordBuy(items[(int) (i & 7)]);
+            return i;
+        });
+
+        EventBus unobserved = new EventBus();
+        benchmarks.put("Town.<init>", i -> {
+            Town town = new Town(shop, difficulty, rng, unobserved);
+            // keep the town reachable, so escape analysis cannot take the allocation away
+            SINK[(int) (i & 15)] = town;
+            return town.getTerrain().getKind();
+        });
+
+        Terrain[] terrains = new Terrain[Terrain.KINDS];
+        for (int kind = 0; kind < Terrain.KINDS; kind++)
+            terrains[kind] = Terrain.of(kind);
+        benchmarks.put("Terrain.canCrossTerrain", i -> terrains[(int) (i % Terrain.KINDS)].canCrossTerrain(hunter) ? 1 : 0);
+
+        benchmarks.put("TreasureHunter.play (seed 42)", i -> {
+            TreasureHunter game = new TreasureHunter(NullOutput.INSTANCE, new GreedyPolicy("n", 500), new SplittableRandom(42));
+            return game.play().getTurns();
+        });
+
+        // the turns SoakCheck promises are allocation-free: staying in one town, with gold GoldLabels has labels for
+        SoakCheck.Soak soak = new SoakCheck.Soak(false, 2000);
+        benchmarks.put("TreasureHunter.playTurn (headless)", i -> soak.playTurn());
+        return benchmarks;
+    }
+
+    /**
+     * Warms up and measures one benchmark on the calling thread.
+     */
+    private static Result measure(LongUnaryOperator op) {
+        runFor(op, WARMUP_NANOS);
+
+        double bestNanos = Double.MAX_VALUE;
+        double bytes = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            long ops = runFor(op, ROUND_NANOS);
+            long elapsed = System.nanoTime() - start;
+            long allocated = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            bestNanos = Math.min(bestNanos, (double) elapsed / ops);
+            bytes += (double) allocated / ops;
+        }
+        return new Result(bestNanos, bytes / ROUNDS);
+    }
+
+    /**
+     * Runs an operation in growing batches until the time is up.
+     *
+     * @return The number of operations run.
+     */
+    private static long runFor(LongUnaryOperator op, long nanos) {
+        long ops = 0;
+        long batch = 1;
+        long deadline = System.nanoTime() + nanos;
+        long sum = 0;
+        while (System.nanoTime() < deadline) {
+            for (long i = 0; i < batch; i++)
+                sum += op.applyAsLong(i);
+            ops += batch;
+            if (batch < (1 << 20))
+                batch <<= 1;
+        }
+        blackhole += sum;
+        return ops;
+    }
+
+    /**
+     * Measures one benchmark in each of several new JVMs, with the same JVM options as this one.
+     *
+     * @return The median of the forks' times and the mean of their allocation.
+     */
+    private static Result measureForked(String name, int forks) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), "Benchmarks", "--fork", name));
+
+        double[] nanos = new double[forks];
+        double bytes = 0;
+        for (int fork = 0; fork < forks; fork++) {
+            Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            String line;
+            try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                line = out.readLine();
+            }
+            try {
+                if (process.waitFor() != 0 || line == null)
+                    throw new IOException("Fork of " + name + " failed");
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while measuring " + name, e);
+            }
+            String[] fields = line.split("\t");
+            nanos[fork] = Double.parseDouble(fields[0]);
+            bytes += Double.parseDouble(fields[1]);
+        }
+        Arrays.sort(nanos);
+        return new Result(nanos[forks / 2], bytes / forks);
+    }
+
+    private static Map<String, Result> readBaseline(Path file) throws IOException {
+        Map<String, Result> baseline = new HashMap<>();
+        for (String line : Files.readAllLines(file)) {
+            if (line.isBlank() || line.startsWith("#"))
+                continue;
+            String[] fields = line.split("\t");
+            baseline.put(fields[0], new Result(Double.parseDouble(fields[1]), Double.parseDouble(fields[2])));
+        }
+        return baseline;
+    }
+
+    /**
+     * Runs every benchmark, or only those whose names contain the filter.<p>
+     * Arguments: [--baseline FILE] [--save FILE] [--forks N] [filter]<p>
+     * With --forks 0 every benchmark runs in this JVM, one after another, which is quicker but noisier.
+     */
+    public static void main(String[] args) throws IOException {
+        Path baselineFile = null;
+        Path saveFile = null;
+        String filter = "";
+        int forks = FORKS;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--baseline" -> baselineFile = Path.of(args[++i]);
+                case "--save" -> saveFile = Path.of(args[++i]);
+                case "--forks" -> forks = Integer.parseInt(args[++i]);
+                case "--fork" -> {
+                    // a forked JVM measures one benchmark and reports it on standard output
+                    Result result = measure(benchmarks().get(args[++i]));
+                    System.out.println(result.nanosPerOp() + "\t" + result.bytesPerOp());
+                    if (blackhole == 42)
+                        System.err.println();
+                    return;
+                }
+                default -> filter = args[i];
+            }
+        }
+        Map<String, Result> baseline = baselineFile == null ? Map.of() : readBaseline(baselineFile);
+
+        StringBuilder saved = new StringBuilder();
+        saved.append(String.format("# Java %s, %d processors%n", Runtime.version(), Runtime.getRuntime().availableProcessors()));
+        saved.append("# benchmark\tns/op\tbytes/op\n");
+        boolean regressed = false;
+        for (Map.Entry<String, LongUnaryOperator> benchmark : benchmarks().entrySet()) {
+            String name = benchmark.getKey();
+            if (!name.contains(filter))
+                continue;
+
+            Result result = forks > 0 ? measureForked(name, forks) : measure(benchmark.getValue());
+            saved.append(String.format("%s\t%.2f\t%.1f%n", name, result.nanosPerOp(), result.bytesPerOp()));
+            String verdict = "";
+            if (ALLOCATION_FREE.contains(name) && result.bytesPerOp() > ALLOCATION_NOISE) {
+                verdict = " ALLOCATES";
+                regressed = true;
+            }
+            Result before = baseline.get(name);
+            if (before != null) {
+                boolean slower = result.nanosPerOp() > before.nanosPerOp() * SLOWDOWN_LIMIT
+                        && result.nanosPerOp() > before.nanosPerOp() + SLOWDOWN_FLOOR;
+                boolean allocates = result.bytesPerOp() > before.bytesPerOp() + ALLOCATION_SLACK;
+                verdict = String.format("  (baseline %.2f ns, %.1f B)%s%s%s", before.nanosPerOp(), before.bytesPerOp(),
+                        slower ? " SLOWER" : "", allocates ? " ALLOCATES MORE" : "", verdict);
+                regressed |= slower || allocates;
+            }
+            System.out.printf("%-32s %12.2f ns/op %10.1f B/op%s%n", name, result.nanosPerOp(), result.bytesPerOp(), verdict);
+        }
+
+        if (saveFile != null)
+            Files.writeString(saveFile, saved);
+        if (blackhole == 42)
+            System.out.println();
+        if (regressed)
+            System.exit(1);
+    }
+}
@@ -0,0 +1,33 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.NoSuchElementException;
+
+/**
+ * The ConsolePolicy reads the player's answers from standard input.<p>
+ * A single reader is shared by the whole game so that buffered input is never split between readers.
+ * It is a plain BufferedReader rather than a Scanner, which would spend longer compiling patterns and loading
+ * locale data than the rest of the game takes to start.
+ */
+
+public class ConsolePolicy implements DecisionPolicy {
+    private final BufferedReader reader;
+
+    public ConsolePolicy() {
+        reader = new BufferedReader(new InputStreamReader(System.in));
+    }
+
+    @Override
+    public String nextLine(Prompt prompt, Hunter hunter) {
+        try {
+            String line = reader.readLine();
+            if (line == null)
+                throw new NoSuchElementException("No line found");
+            return line;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+/**
+ * A DecisionPolicy supplies the player's answers to the game's prompts.<p>
+ * The console implementation reads them from the keyboard; simulated players compute them from the game state.
+ */
+
+public interface DecisionPolicy {
+    /**
+     * Answers a prompt.
+     *
+     * @param prompt The prompt being answered.
+     * @param hunter The hunter being played, or null before one has been created.
+     * @return The line the player typed.
+     */
+    String nextLine(Prompt prompt, Hunter hunter);
+
+    /**
+     * Called whenever the hunter arrives in a new town, so the policy can look at the town it is playing in.
+     *
+     * @param town The town the hunter just entered.
+     */
+    default void enteredTown(Town town) {
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.Arrays;
+
+/**
+ * The Difficulty class holds the numbers that make a game of Treasure Hunter easier or harder.<p>
+ * Each difficulty computes its shop price table once, so every town's shop can share it. In the same way it builds
+ * an AliasTable once for each of the rolls that pick one of many outcomes: a new town's terrain and treasure, the
+ * gold won or lost in a brawl and the gold dug up. Terrains and treasures can be given weights, so some are rarer
+ * than others; the built-in difficulties make every outcome equally likely. Weights are not saved with a game.
+ */
+
+public class Difficulty {
+    // static variables, ahead of the difficulties built from them
+    private static final AliasTable UNIFORM_BRAWL_GOLD = AliasTable.uniform(10);
+    private static final AliasTable UNIFORM_DIG_GOLD = AliasTable.uniform(20);
+
+    public static final Difficulty EASY = new Difficulty("Easy", 40, 1, 0.2, 0, false);
+    public static final Difficulty NORMAL = new Difficulty("Normal", 20, 0.5, 0.4, 0.5, false);
+    public static final Difficulty HARD = new Difficulty("Hard", 20, 0.25, 0.75, 0.65, false);
+    public static final Difficulty SAMURAI = new Difficulty("Samurai", 20, 0.25, 0.75, 0.65, true);
+
+    // instance variables
+    private final String name;
+    private final int startingGold;
+    private final double markdown;
+    private final double toughness;
+    private final double breakChance;
+    private final boolean samurai;
+    private final PriceTable prices;
+    private final AliasTable terrains;
+    private final AliasTable treasures;
+    private final AliasTable brawlGold;
+    private final AliasTable digGold;
+
+    /**
+     * @param name The name shown for the difficulty.
+     * @param startingGold The gold a hunter starts with.
+     * @param markdown Percentage of the price a shop pays back when buying an item, in decimal format.
+     * @param toughness The chance that a town is a tough town.
+     * @param breakChance The chance that an item breaks when it is used to cross terrain.
+     * @param samurai Whether the katana is for sale.
+     */
+    public Difficulty(String name, int startingGold, double markdown, double toughness, double breakChance, boolean samurai) {
+        this(name, startingGold, markdown, toughness, breakChance, samurai,
+                uniformWeights(Terrain.KINDS), uniformWeights(Treasure.values().length));
+    }
+
+    /**
+     * @param name The name shown for the difficulty.
+     * @param startingGold The gold a hunter starts with.
+     * @param markdown Percentage of the price a shop pays back when buying an item, in decimal format.
+     * @param toughness The chance that a town is a tough town.
+     * @param breakChance The chance that an item breaks when it is used to cross terrain.
+     * @param samurai Whether the katana is for sale.
+     * @param terrainWeights How often each kind of terrain surrounds a town, indexed by kind.
+     * @param treasureWeights How often each treasure is hidden in a town, indexed by ordinal, dust included.
+     */
+    public Difficulty(String name, int startingGold, double markdown, double toughness, double breakChance, boolean samurai,
+                      double[] terrainWeights, double[] treasureWeights) {
+        if (terrainWeights.length != Terrain.KINDS || treasureWeights.length != Treasure.values().length)
+            throw new IllegalArgumentException("Need a weight for every terrain and every treasure");
+        this.name = name;
+        this.startingGold = startingGold;
+        this.markdown = markdown;
+        this.toughness = toughness;
+        this.breakChance = breakChance;
+        this.samurai = samurai;
+        prices = new PriceTable(markdown, samurai);
+        terrains = new AliasTable(terrainWeights);
+        treasures = new AliasTable(treasureWeights);
+        brawlGold = UNIFORM_BRAWL_GOLD;
+        digGold = UNIFORM_DIG_GOLD;
+    }
+
+    private static double[] uniformWeights(int size) {
+        double[] weights = new double[size];
+        Arrays.fill(weights, 1);
+        return weights;
+    }
+
+    // accessors
+    public String getName() {
+        return name;
+    }
+
+    public int getStartingGold() {
+        return startingGold;
+    }
+
+    public double getMarkdown() {
+        return markdown;
+    }
+
+    public double getToughness() {
+        return toughness;
+    }
+
+    public double getBreakChance() {
+        return breakChance;
+    }
+
+    public boolean isSamurai() {
+        return samurai;
+    }
+
+    public PriceTable getPrices() {
+        return prices;
+    }
+
+    /**
+     * @return Picks a new town's terrain kind.
+     */
+    public AliasTable getTerrains() {
+        return terrains;
+    }
+
+    /**
+     * @return Picks a new town's treasure, by ordinal.
+     */
+    public AliasTable getTreasures() {
+        return treasures;
+    }
+
+    /**
+     * @return Picks the gold won or lost in a brawl, less 1.
+     */
+    public AliasTable getBrawlGold() {
+        return brawlGold;
+    }
+
+    /**
+     * @return Picks the gold found when digging finds any, less 1.
+     */
+    public AliasTable getDigGold() {
+        return digGold;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,223 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The DifficultyTuner sweeps a grid of difficulty settings and estimates how each one plays.<p>
+ * Every grid point is a combination of markdown, toughness, breakChance and starting gold.
+ * Games at a point are played in batches, split across cores with fork/join, by the GreedyPolicy.
+ * Sampling at a point stops as soon as the 95% confidence interval of its win rate is narrow enough,
+ * so easy-to-measure points finish early and the sweep spends its time where it is needed.
+ */
+
+public class DifficultyTuner {
+    // static variables
+    private static final int BATCH = 16_384;
+    private static final int LEAF = 512;
+    private static final int MAX_TURNS = 500;
+    private static final int GOLD_MIN = -10;
+    private static final int GOLD_MAX = 200;
+    private static final double Z = 1.96;
+
+    // instance variables
+    private final ForkJoinPool pool;
+    private final double halfWidth;
+    private final long minGames;
+    private final long maxGames;
+
+    /**
+     * @param halfWidth The 95% confidence half width of the win rate at which a point stops sampling.
+     * @param minGames The fewest games played at any point.
+     * @param maxGames The most games played at any point.
+     */
+    public DifficultyTuner(double halfWidth, long minGames, long maxGames) {
+        pool = ForkJoinPool.commonPool();
+        this.halfWidth = halfWidth;
+        this.minGames = minGames;
+        this.maxGames = maxGames;
+    }
+
+    /**
+     * The results gathered at one grid point.
+     */
+    public static class PointStats {
+        private long games;
+        private long wins;
+        private long turnsToWin;
+        private long totalGold;
+        private final long[] goldCounts = new long[GOLD_MAX - GOLD_MIN + 1];
+
+        void add(GameResult result) {
+            games++;
+            if (result.isWin()) {
+                wins++;
+                turnsToWin += result.getTurns();
+            }
+            totalGold += result.getGold();
+            int gold = Math.max(GOLD_MIN, Math.min(GOLD_MAX, result.getGold()));
+            goldCounts[gold - GOLD_MIN]++;
+        }
+
+        void merge(PointStats other) {
+            games += other.games;
+            wins += other.wins;
+            turnsToWin += other.turnsToWin;
+            totalGold += other.totalGold;
+            for (int i = 0; i < goldCounts.length; i++)
+                goldCounts[i] += other.goldCounts[i];
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public double getWinRate() {
+            return games == 0 ? 0 : (double) wins / games;
+        }
+
+        /**
+         * The Wilson score interval is used rather than the plain normal one, which has no width at all when
+         * every game so far was won, or every one lost, and so would stop sampling such points far too early.
+         *
+         * @return The half width of the 95% confidence interval of the win rate.
+         */
+        public double getWinRateHalfWidth() {
+            if (games == 0)
+                return 1;
+            double p = getWinRate();
+            double z2 = Z * Z;
+            return Z / (1 + z2 / games) * Math.sqrt(p * (1 - p) / games + z2 / (4.0 * games * games));
+        }
+
+        public double getMeanTurnsToWin() {
+            return wins == 0 ? 0 : (double) turnsToWin / wins;
+        }
+
+        public double getMeanGold() {
+            return games == 0 ? 0 : (double) totalGold / games;
+        }
+
+        /**
+         * @param p A fraction between 0 and 1.
+         * @return The gold at the end of a game below which that fraction of games finished.
+         *         Values are clamped to the range the histogram covers.
+         */
+        public int goldPercentile(double p) {
+            long target = (long) Math.ceil(p * games);
+            long seen = 0;
+            for (int i = 0; i < goldCounts.length; i++) {
+                seen += goldCounts[i];
+                if (seen >= Math.max(1, target))
+                    return i + GOLD_MIN;
+            }
+            return GOLD_MAX;
+        }
+    }
+
+    /**
+     * Plays a range of game numbers, splitting it in half until the pieces are small.
+     */
+    @SuppressWarnings("serial") // never serialized: fork/join tasks live and die in one pool
+    private static class GamesTask extends RecursiveTask<PointStats> {
+        private final Difficulty difficulty;
+        private final long seed;
+        private final long from;
+        private final long to;
+
+        GamesTask(Difficulty difficulty, long seed, long from, long to) {
+            this.difficulty = difficulty;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PointStats compute() {
+            if (to - from <= LEAF) {
+                PointStats stats = new PointStats();
+                for (long g = from; g < to; g++) {
+                    TreasureHunter game = new TreasureHunter(NullOutput.INSTANCE, new GreedyPolicy("n", MAX_TURNS),
+                            new SplittableRandom(seed + g));
+                    game.setDifficulty(difficulty);
+                    stats.add(game.play());
+                }
+                return stats;
+            }
+            long mid = (from + to) >>> 1;
+            GamesTask left = new GamesTask(difficulty, seed, from, mid);
+            left.fork();
+            PointStats stats = new GamesTask(difficulty, seed, mid, to).compute();
+            stats.merge(left.join());
+            return stats;
+        }
+    }
+
+    /**
+     * Samples one grid point until its win rate is known well enough.
+     *
+     * @param difficulty The settings to play.
+     * @param seed The seed for the point's games.
+     * @return The results at the point.
+     */
+    public PointStats sample(Difficulty difficulty, long seed) {
+        PointStats stats = new PointStats();
+        while (stats.games < maxGames) {
+            long batch = Math.min(BATCH, maxGames - stats.games);
+            stats.merge(pool.invoke(new GamesTask(difficulty, seed, stats.games, stats.games + batch)));
+            if (stats.games >= minGames && stats.getWinRateHalfWidth() <= halfWidth)
+                break;
+        }
+        return stats;
+    }
+
+    /**
+     * Sweeps the whole grid and prints one line per point.
+     */
+    public void sweep(double[] markdowns, double[] toughnesses, double[] breakChances, int[] startingGolds, long seed) {
+        System.out.println("markdown toughness break gold |    games  win%   +/-  turns-to-win  mean-gold  gold p10/p50/p90");
+        long start = System.nanoTime();
+        long point = 0;
+        for (double markdown : markdowns) {
+            for (double toughness : toughnesses) {
+                for (double breakChance : breakChances) {
+                    for (int gold : startingGolds) {
+                        Difficulty difficulty = new Difficulty("Tuning", gold, markdown, toughness, breakChance, false);
+                        PointStats stats = sample(difficulty, seed + (point++ << 32));
+                        System.out.printf("%8.2f %9.2f %5.2f %4d | %8d %5.2f %5.2f %13.2f %10.2f  %d/%d/%d%n",
+                                markdown, toughness, breakChance, gold,
+                                stats.getGames(), 100 * stats.getWinRate(), 100 * stats.getWinRateHalfWidth(),
+                                stats.getMeanTurnsToWin(), stats.getMeanGold(),
+                                stats.goldPercentile(0.1), stats.goldPercentile(0.5), stats.goldPercentile(0.9));
+                    }
+                }
+            }
+        }
+        System.out.printf("Swept %d points in %.1f s%n", point, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Runs a sweep.<p>
+     * Arguments: [half width] [max games per point] [markdowns] [toughnesses] [break chances] [starting golds]<br>
+     * Lists are comma separated, e.g. <code>0.01 1000000 0.25,0.5,1 0.2,0.4,0.75 0,0.5,0.65 10,20,40</code>
+     */
+    public static void main(String[] args) {
+        double halfWidth = args.length > 0 ? Double.parseDouble(args[0]) : 0.005;
+        long maxGames = args.length > 1 ? Long.parseLong(args[1]) : 2_000_000;
+        double[] markdowns = args.length > 2 ? parseDoubles(args[2]) : new double[] {0.25, 0.5, 1};
+        double[] toughnesses = args.length > 3 ? parseDoubles(args[3]) : new double[] {0.2, 0.4, 0.75};
+        double[] breakChances = args.length > 4 ? parseDoubles(args[4]) : new double[] {0, 0.5, 0.65};
+        int[] startingGolds = args.length > 5 ? parseInts(args[5]) : new int[] {10, 20, 40};
+
+        DifficultyTuner tuner = new DifficultyTuner(halfWidth, BATCH, maxGames);
+        tuner.sweep(markdowns, toughnesses, breakChances, startingGolds, new SplittableRandom().nextLong());
+    }
+
+    private static double[] parseDoubles(String list) {
+        return Arrays.stream(list.split(",")).mapToDouble(Double::parseDouble).toArray();
+    }
+
+    private static int[] parseInts(String list) {
+        return Arrays.stream(list.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+}
@@ -0,0 +1,147 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The EventBus carries one game session's GameEvents from the game logic to whoever subscribes to them.<p>
+ * Renderers are handed every event straight away on the game thread, because the text of a turn has to be
+ * complete, and in order with the menu around it, before the player is asked for their next move.
+ * Everything else, such as journals and metrics, subscribes asynchronously: events are collected in a batch
+ * that is handed to a shared pool of dispatcher threads when the turn is flushed, or when the batch fills up.
+ * Batches of one bus are delivered one after another, in order, while different buses are delivered in
+ * parallel. awaitDelivery waits until everything published so far has been delivered. A subscriber that throws
+ * is reported to the dispatcher thread's uncaught exception handler and skipped for that event only, so it can
+ * neither keep events from the other subscribers nor end the game.<p>
+ * When nothing subscribes, the game logic does not even create its events: check isActive before publishing.
+ * A bus belongs to its game thread and must not be published to from anywhere else.
+ */
+
+public class EventBus {
+    // static variables
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * Holds the dispatcher threads, so they are only started once something subscribes.
+     */
+    private static class Dispatchers {
+        private static final ExecutorService POOL = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), task -> {
+                    Thread thread = new Thread(task, "event dispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // instance variables
+    private final List<EventSubscriber> renderers;
+    private final List<EventSubscriber> subscribers;
+    private boolean active;
+
+    // only touched on the game thread
+    private GameEvent[] batch;
+    private int batchSize;
+    private CompletableFuture<Void> delivered;
+
+    public EventBus() {
+        renderers = new ArrayList<>();
+        subscribers = new ArrayList<>();
+        delivered = CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * @return Whether anything subscribes to the bus, so events are worth publishing.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * @return Whether anything subscribes asynchronously.
+     */
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    /**
+     * Hands every event to a renderer on the game thread, as it is published.
+     *
+     * @param renderer The renderer.
+     */
+    public void addRenderer(EventSubscriber renderer) {
+        renderers.add(renderer);
+        active = true;
+    }
+
+    /**
+     * Delivers every event to a subscriber on a dispatcher thread, in batches.
+     *
+     * @param subscriber The subscriber.
+     */
+    public void subscribe(EventSubscriber subscriber) {
+        subscribers.add(subscriber);
+        batch = new GameEvent[BATCH_SIZE];
+        active = true;
+    }
+
+    /**
+     * Tells an observer about every event that stands for a GameObserver call, on a dispatcher thread.
+     *
+     * @param observer The observer. GameObserver.NONE is not subscribed at all.
+     */
+    public void subscribe(GameObserver observer) {
+        if (observer != GameObserver.NONE)
+            subscribe(event -> event.notify(observer));
+    }
+
+    /**
+     * Publishes an event.
+     *
+     * @param event The event.
+     */
+    public void publish(GameEvent event) {
+        for (int i = 0; i < renderers.size(); i++)
+            renderers.get(i).onEvent(event);
+        if (batch != null) {
+            batch[batchSize++] = event;
+            if (batchSize == BATCH_SIZE)
+                flush();
+        }
+    }
+
+    /**
+     * Hands the events collected so far to the dispatchers.
+     */
+    public void flush() {
+        if (batchSize == 0)
+            return;
+        GameEvent[] events = Arrays.copyOf(batch, batchSize);
+        Arrays.fill(batch, 0, batchSize, null);
+        batchSize = 0;
+        delivered = delivered.thenRunAsync(() -> deliver(events), Dispatchers.POOL);
+    }
+
+    /**
+     * Flushes, then waits until every event published so far has reached every subscriber.
+     */
+    public void awaitDelivery() {
+        flush();
+        delivered.join();
+    }
+
+    private void deliver(GameEvent[] events) {
+        for (EventSubscriber subscriber : subscribers) {
+            for (GameEvent event : events) {
+                try {
+                    subscriber.onEvent(event);
+                }
+                catch (RuntimeException e) {
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }
+        }
+    }
+}
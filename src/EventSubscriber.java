@@ -0,0 +1,11 @@
+/**
+ * An EventSubscriber is handed the events a game publishes to its EventBus, in the order they happened.
+ */
+
+@FunctionalInterface
+public interface EventSubscriber {
+    /**
+     * @param event Something that happened in the game.
+     */
+    void onEvent(GameEvent event);
+}
@@ -0,0 +1,230 @@
+import java.util.SplittableRandom;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * The ExpectimaxPolicy is a simulated player that looks ahead before every move.<p>
+ * It searches the GameModel with depth-limited expectimax: it takes the best move at its own turns and averages over
+ * the random outcomes of brawls, digs, hunts and item breaks. Searches deepen one move at a time until the time
+ * budget for the decision runs out, and the deepest search that finished picks the move.<p>
+ * Searched positions are remembered in a fixed-size table keyed on the packed state and the depth searched, so
+ * the policy never grows, and positions seen in earlier decisions of the same game are free.
+ */
+
+public class ExpectimaxPolicy implements DecisionPolicy {
+    // static variables
+    private static final Item[] ITEMS = Item.values();
+    private static final int MAX_GOLD = 100;
+    private static final int MAX_DEPTH = 8;
+    private static final int CACHE_BITS = 14;
+    private static final int CLOCK_CHECK = 63;
+    private static final int RICH = 40;
+
+    // instance variables
+    private final GameModel model;
+    private final String difficulty;
+    private final long budgetNanos;
+    private final int maxTurns;
+
+    private final long[] cacheKeys;
+    private final double[] cacheValues;
+    private final IntToDoubleFunction[] searchAt;
+    private long deadline;
+    private int nodes;
+    private boolean outOfTime;
+
+    private LatencyHistogram decisionTimes;
+    private Town town;
+    private String pendingItem;
+    private int turns;
+
+    /**
+     * @param difficulty The answer given at the difficulty prompt ("e", "n", "h" or "s").
+     * @param budgetNanos How long each move may take to choose.
+     * @param maxTurns The number of menu choices after which the policy gives up and exits.
+     */
+    public ExpectimaxPolicy(String difficulty, long budgetNanos, int maxTurns) {
+        this.difficulty = difficulty;
+        this.budgetNanos = budgetNanos;
+        this.maxTurns = maxTurns;
+        Difficulty played = switch (difficulty) {
+            case "e" -> Difficulty.EASY;
+            case "h" -> Difficulty.HARD;
+            case "s" -> Difficulty.SAMURAI;
+            default -> Difficulty.NORMAL;
+        };
+        model = new GameModel(played, MAX_GOLD);
+        cacheKeys = new long[1 << CACHE_BITS];
+        cacheValues = new double[1 << CACHE_BITS];
+        searchAt = new IntToDoubleFunction[MAX_DEPTH];
+        for (int depth = 0; depth < MAX_DEPTH; depth++) {
+            int remaining = depth;
+            searchAt[depth] = state -> search(state, remaining);
+        }
+    }
+
+    /**
+     * Records how long every move takes to choose.
+     *
+     * @param decisionTimes Where the times are recorded, or null to not record them.
+     */
+    public void setDecisionTimes(LatencyHistogram decisionTimes) {
+        this.decisionTimes = decisionTimes;
+    }
+
+    @Override
+    public void enteredTown(Town town) {
+        this.town = town;
+    }
+
+    @Override
+    public String nextLine(Prompt prompt, Hunter hunter) {
+        return switch (prompt) {
+            case NAME -> "autopilot";
+            case DIFFICULTY -> difficulty;
+            case MENU -> chooseMove(hunter);
+            case BUY_ITEM, SELL_ITEM -> pendingItem == null ? "" : pendingItem;
+            case BUY_CONFIRM, SELL_CONFIRM -> "y";
+            case DESTINATION -> "";
+        };
+    }
+
+    /**
+     * Picks the next menu option.
+     *
+     * @param hunter The hunter being played.
+     * @return The menu option.
+     */
+    private String chooseMove(Hunter hunter) {
+        pendingItem = null;
+        turns++;
+        if (turns > maxTurns)
+            return "x";
+
+        long start = System.nanoTime();
+        int action = bestAction(model.state(hunter, town), start + budgetNanos);
+        if (decisionTimes != null)
+            decisionTimes.record(System.nanoTime() - start);
+
+        if (action < GameModel.SELL) {
+            pendingItem = ITEMS[action].getName();
+            return "b";
+        }
+        if (action < GameModel.MOVE) {
+            pendingItem = ITEMS[action - GameModel.SELL].getName();
+            return "s";
+        }
+        return switch (action) {
+            case GameModel.MOVE -> "m";
+            case GameModel.TROUBLE -> "l";
+            case GameModel.HUNT -> "h";
+            default -> "d";
+        };
+    }
+
+    /**
+     * Searches one move deeper at a time until the deadline.
+     *
+     * @param state The packed state of the game.
+     * @param deadline The System.nanoTime() by which a move must be chosen.
+     * @return The best move of the deepest finished search. At least a one move search is always finished.
+     */
+    private int bestAction(int state, long deadline) {
+        this.deadline = deadline;
+        outOfTime = false;
+        int best = GameModel.TROUBLE;
+        for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+            int bestAtDepth = GameModel.TROUBLE;
+            double bestValue = -1;
+            // progress moves are tried first, so they win ties
+            for (int action = GameModel.ACTIONS - 1; action >= 0; action--) {
+                if (!model.isAvailable(state, action))
+                    continue;
+                double value = model.expectedValue(state, action, searchAt[depth - 1]);
+                if (value > bestValue) {
+                    bestAtDepth = action;
+                    bestValue = value;
+                }
+            }
+            if (outOfTime)
+                break; // a one move search only estimates, so it always finishes
+            best = bestAtDepth;
+        }
+        return best;
+    }
+
+    /**
+     * Expectimax search with memoization.
+     *
+     * @param state A packed state.
+     * @param depth The number of moves left to search.
+     * @return The state's estimated chance of winning.
+     */
+    private double search(int state, int depth) {
+        if (depth == 0)
+            return estimate(state);
+
+        long key = (long) state << 4 | depth;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - CACHE_BITS));
+        if (cacheKeys[slot] == key + 1)
+            return cacheValues[slot];
+
+        if ((++nodes & CLOCK_CHECK) == 0 && System.nanoTime() > deadline)
+            outOfTime = true;
+        if (outOfTime)
+            return 0;
+
+        double best = 0;
+        for (int action = 0; action < GameModel.ACTIONS; action++) {
+            if (model.isAvailable(state, action))
+                best = Math.max(best, model.expectedValue(state, action, searchAt[depth - 1]));
+        }
+        if (outOfTime)
+            return 0; // an unfinished search must not be remembered
+
+        cacheKeys[slot] = key + 1;
+        cacheValues[slot] = best;
+        return best;
+    }
+
+    /**
+     * Guesses how well placed the hunter is in a state at the edge of the search, from the treasures collected and
+     * the treasure that hunting the current town may find, the hunter's gold, whether they can leave town and whether
+     * they own a shovel. The weights were picked by playing games on normal.
+     *
+     * @param state A packed state.
+     * @return The estimate, between 0 and 1.
+     */
+    private double estimate(int state) {
+        int collected = Integer.bitCount(GameModel.treasures(state));
+        double hunt = (GameModel.flags(state) & GameModel.SEARCHED) == 0 ? (Treasure.COLLECTIBLE_COUNT - collected) / 4.0 : 0;
+        double gold = Math.min(GameModel.gold(state), RICH) / (double) RICH;
+        double cross = model.isAvailable(state, GameModel.MOVE) ? 1 : 0;
+        double shovel = (GameModel.kit(state) & 1 << Item.SHOVEL.ordinal()) != 0 ? 1 : 0;
+        return 0.4 * (collected + hunt) / Treasure.COLLECTIBLE_COUNT + 0.3 * gold + 0.15 * cross + 0.15 * shovel;
+    }
+
+    /**
+     * Plays a batch of games with the autopilot and prints its win rate and how long its moves took.<p>
+     * Arguments: [games] [difficulty] [budget in microseconds]
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        String difficulty = args.length > 1 ? args[1] : "n";
+        long budget = (args.length > 2 ? Long.parseLong(args[2]) : 500) * 1000;
+
+        LatencyHistogram decisionTimes = new LatencyHistogram();
+        SimulationReport report = new SimulationReport();
+        SplittableRandom seeds = new SplittableRandom(1);
+        long start = System.nanoTime();
+        for (int g = 0; g < games; g++) {
+            ExpectimaxPolicy policy = new ExpectimaxPolicy(difficulty, budget, 1000);
+            policy.setDecisionTimes(decisionTimes);
+            report.add(SimulationEngine.playOne(policy, seeds.split(), GameObserver.NONE));
+        }
+        report.setElapsedNanos(System.nanoTime() - start);
+        System.out.println(report);
+        System.out.printf("%d moves: mean %.1f us, p50 < %.1f us, p99 < %.1f us%n", decisionTimes.getCount(),
+                decisionTimes.getMeanNanos() / 1e3, decisionTimes.percentileNanos(0.5) / 1e3,
+                decisionTimes.percentileNanos(0.99) / 1e3);
+    }
+}
@@ -0,0 +1,197 @@
+import java.util.Set;
+
+/**
+ * A GameEvent is something that happened in a game, as a value: the game logic in Town and Shop publishes events
+ * to the session's EventBus instead of writing text, and the TextRenderer turns them into text when someone is
+ * watching.<p>
+ * Events that change a hunter or a town also know which GameObserver method they stand for, so every observer
+ * can subscribe to the bus unchanged. Events are immutable, so they can be handed to another thread.
+ */
+
+public sealed interface GameEvent {
+    /**
+     * Tells an observer about the event, if it is one observers are told about.
+     *
+     * @param observer The observer.
+     */
+    default void notify(GameObserver observer) {
+    }
+
+    /**
+     * @param action The menu choice, as typed.
+     * @param nanos How long carrying it out took.
+     */
+    record TurnPlayed(String action, long nanos) implements GameEvent {
+        @Override
+        public void notify(GameObserver observer) {
+            observer.turnPlayed(action, nanos);
+        }
+    }
+
+    /**
+     * @param name The hunter's name.
+     * @param gold The gold the hunter starts with.
+     * @param kit The items the hunter starts with.
+     * @param difficulty The difficulty of the game.
+     */
+    record GameStarted(String name, int gold, Set<Item> kit, Difficulty difficulty) implements GameEvent {
+        @Override
+        public void notify(GameObserver observer) {
+            Hunter hunter = new Hunter(name, gold, NullOutput.INSTANCE);
+            for (Item item : kit)
+                hunter.addItemToKit(item);
+            observer.gameStarted(hunter, difficulty);
+        }
+    }
+
+    /**
+     * @param treasure The treasure hidden in the town.
+     * @param terrain The terrain surrounding the town.
+     * @param toughTown Whether the town is a tough town.
+     */
+    record TownCreated(Treasure treasure, Terrain terrain, boolean toughTown) implements GameEvent {
+        @Override
+        public void notify(GameObserver observer) {
+            observer.townCreated(treasure, terrain, toughTown);
+        }
+    }
+
+    /**
+     * A hunter went back to a town of their world that was made earlier.
+     *
+     * @param treasure The treasure hidden in the town.
+     * @param terrain The terrain surrounding the town.
+     * @param toughTown Whether the town is a tough town.
+     * @param searched Whether the town has already been searched.
+     * @param dug Whether the town has already been dug.
+     */
+    record TownRevisited(Treasure treasure, Terrain terrain, boolean toughTown, boolean searched, boolean dug)
+            implements GameEvent {
+        @Override
+        public void notify(GameObserver observer) {
+            observer.townRevisited(treasure, terrain, toughTown, searched, dug);
+        }
+    }
+
+    /**
+     * @param hunterName The name of the hunter who arrived.
+     * @param toughTown Whether the town is a tough town.
+     */
+    record TownEntered(String hunterName, boolean toughTown) implements GameEvent { }
+
+    /**
+     * @param terrain The terrain crossed.
+     * @param item The item used to cross it.
+     * @param sliced Whether the hunter cut through bamboo with a katana instead, so nothing could break.
+     * @param broke Whether the item broke on the way.
+     */
+    record TerrainCrossed(Terrain terrain, Item item, boolean sliced, boolean broke) implements GameEvent {
+        @Override
+        public void notify(GameObserver observer) {
+            if (broke)
+                observer.itemBroke(item);
+        }
+    }
+
+    /**
+     * @param hunterName The name of the hunter who could not leave.
+     * @param needed The item needed to cross the terrain.
+     */
+    record LeaveRefused(String hunterName, Item needed) implements GameEvent { }
+
+    record NoTrouble() implements GameEvent { }
+
+    /**
+     * @param gold The gold won.
+     * @param katana Whether the other side ran from the hunter's katana instead of fighting.
+     */
+    record BrawlWon(int gold, boolean katana) implements GameEvent {
+        @Override
+        public void notify(GameObserver observer) {
+            observer.brawl(true, gold);
+        }
+    }
+
+    /**
+     * @param gold The gold lost.
+     */
+    record BrawlLost(int gold) implements GameEvent {
+        @Override
+        public void notify(GameObserver observer) {
+            observer.brawl(false, gold);
+        }
+    }
+
+    /**
+     * @param treasure What was found, which may be dust.
+     * @param kept Whether it was added to the hunter's collection.
+     */
+    record TreasureFound(Treasure treasure, boolean kept) implements GameEvent {
+        @Override
+        public void notify(GameObserver observer) {
+            observer.treasureHunted(treasure, kept);
+        }
+    }
+
+    record AlreadySearched() implements GameEvent { }
+
+    /**
+     * @param gold The gold dug up, which may be 0.
+     */
+    record Dug(int gold) implements GameEvent {
+        @Override
+        public void notify(GameObserver observer) {
+            observer.dug(gold);
+        }
+    }
+
+    /**
+     * @param byOther Whether another hunter got to the town's gold first.
+     */
+    record AlreadyDug(boolean byOther) implements GameEvent { }
+
+    record NoShovel() implements GameEvent { }
+
+    /**
+     * @param item The item bought.
+     * @param cost The gold the hunter actually paid.
+     */
+    record ItemBought(Item item, int cost) implements GameEvent {
+        @Override
+        public void notify(GameObserver observer) {
+            observer.itemBought(item, cost);
+        }
+    }
+
+    /**
+     * The shopkeeper handed an item over for free because the hunter carries a katana.
+     *
+     * @param item The item taken.
+     * @param couldAfford Whether the hunter had the gold anyway.
+     */
+    record KatanaDiscount(Item item, boolean couldAfford) implements GameEvent {
+        @Override
+        public void notify(GameObserver observer) {
+            observer.itemBought(item, 0);
+        }
+    }
+
+    /**
+     * @param item The item asked for, as typed.
+     * @param alreadyOwned Whether the hunter already had one, rather than not having the gold.
+     */
+    record PurchaseRefused(String item, boolean alreadyOwned) implements GameEvent { }
+
+    /**
+     * @param item The item sold.
+     * @param price The gold the hunter received.
+     */
+    record ItemSold(Item item, int price) implements GameEvent {
+        @Override
+        public void notify(GameObserver observer) {
+            observer.itemSold(item, price);
+        }
+    }
+
+    record SaleRefused() implements GameEvent { }
+}
@@ -0,0 +1,213 @@
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The GameMetrics class counts how long each menu action takes and where gold comes from and goes.<p>
+ * It is a GameObserver, so one instance can be shared by every session it should count.
+ * All counters are LongAdders, so thousands of sessions can record at once without contending.
+ * The figures are published over JMX under <code>TreasureHunter:type=GameMetrics</code>.<p>
+ * Latency is measured around processChoice, so buying and selling include the time spent answering the shopkeeper.
+ */
+
+public class GameMetrics implements GameObserver, GameMetricsMXBean {
+    private static final String ACTIONS = "bsemlhd";
+    private static final String OTHER = "other";
+    private static final GameMetrics GLOBAL = new GameMetrics();
+
+    // instance variables
+    private final LatencyHistogram[] latencies;
+    private final LongAdder brawlsWon = new LongAdder();
+    private final LongAdder brawlsLost = new LongAdder();
+    private final LongAdder goldWonInBrawls = new LongAdder();
+    private final LongAdder goldLostInBrawls = new LongAdder();
+    private final LongAdder digs = new LongAdder();
+    private final LongAdder goldDug = new LongAdder();
+    private final LongAdder itemsBought = new LongAdder();
+    private final LongAdder goldSpentInShops = new LongAdder();
+    private final LongAdder itemsSold = new LongAdder();
+    private final LongAdder goldEarnedInShops = new LongAdder();
+    private final LongAdder itemsBroken = new LongAdder();
+    private final LongAdder goldValueOfBrokenItems = new LongAdder();
+    private final LongAdder treasuresFound = new LongAdder();
+
+    public GameMetrics() {
+        latencies = new LatencyHistogram[ACTIONS.length() + 1];
+        for (int i = 0; i < latencies.length; i++)
+            latencies[i] = new LatencyHistogram();
+    }
+
+    /**
+     * @return The process-wide metrics, registered with the platform MBean server the first time they are asked for.
+     */
+    public static GameMetrics global() {
+        GLOBAL.register();
+        return GLOBAL;
+    }
+
+    private synchronized void register() {
+        try {
+            ObjectName name = new ObjectName("TreasureHunter:type=GameMetrics");
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name))
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("Could not register the game metrics", e);
+        }
+    }
+
+    @Override
+    public void turnPlayed(String action, long nanos) {
+        int index = action.length() == 1 ? ACTIONS.indexOf(action.charAt(0)) : -1;
+        latencies[index < 0 ? ACTIONS.length() : index].record(nanos);
+    }
+
+    @Override
+    public void itemBought(Item item, int cost) {
+        itemsBought.increment();
+        goldSpentInShops.add(cost);
+    }
+
+    @Override
+    public void itemSold(Item item, int price) {
+        itemsSold.increment();
+        goldEarnedInShops.add(price);
+    }
+
+    @Override
+    public void brawl(boolean won, int gold) {
+        if (won) {
+            brawlsWon.increment();
+            goldWonInBrawls.add(gold);
+        }
+        else {
+            brawlsLost.increment();
+            goldLostInBrawls.add(gold);
+        }
+    }
+
+    @Override
+    public void treasureHunted(Treasure treasure, boolean kept) {
+        if (kept)
+            treasuresFound.increment();
+    }
+
+    @Override
+    public void dug(int gold) {
+        digs.increment();
+        goldDug.add(gold);
+    }
+
+    @Override
+    public void itemBroke(Item item) {
+        itemsBroken.increment();
+        goldValueOfBrokenItems.add(item.getCost());
+    }
+
+    /**
+     * @param action A menu letter, or "other".
+     * @return The latency histogram for that action.
+     */
+    public LatencyHistogram getLatency(String action) {
+        int index = ACTIONS.indexOf(action);
+        return latencies[index < 0 || action.length() != 1 ? ACTIONS.length() : index];
+    }
+
+    private Map<String, Double> perAction(ToDoubleFunction<LatencyHistogram> value) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (int i = 0; i < latencies.length; i++)
+            values.put(i < ACTIONS.length() ? String.valueOf(ACTIONS.charAt(i)) : OTHER, value.applyAsDouble(latencies[i]));
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getActionCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        perAction(LatencyHistogram::getCount).forEach((action, count) -> counts.put(action, count.longValue()));
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getActionMeanMicros() {
+        return perAction(h -> h.getMeanNanos() / 1e3);
+    }
+
+    @Override
+    public Map<String, Double> getActionP50Micros() {
+        return perAction(h -> h.percentileNanos(0.5) / 1e3);
+    }
+
+    @Override
+    public Map<String, Double> getActionP99Micros() {
+        return perAction(h -> h.percentileNanos(0.99) / 1e3);
+    }
+
+    @Override
+    public long getBrawlsWon() {
+        return brawlsWon.sum();
+    }
+
+    @Override
+    public long getBrawlsLost() {
+        return brawlsLost.sum();
+    }
+
+    @Override
+    public long getGoldWonInBrawls() {
+        return goldWonInBrawls.sum();
+    }
+
+    @Override
+    public long getGoldLostInBrawls() {
+        return goldLostInBrawls.sum();
+    }
+
+    @Override
+    public long getDigs() {
+        return digs.sum();
+    }
+
+    @Override
+    public long getGoldDug() {
+        return goldDug.sum();
+    }
+
+    @Override
+    public long getItemsBought() {
+        return itemsBought.sum();
+    }
+
+    @Override
+    public long getGoldSpentInShops() {
+        return goldSpentInShops.sum();
+    }
+
+    @Override
+    public long getItemsSold() {
+        return itemsSold.sum();
+    }
+
+    @Override
+    public long getGoldEarnedInShops() {
+        return goldEarnedInShops.sum();
+    }
+
+    @Override
+    public long getItemsBroken() {
+        return itemsBroken.sum();
+    }
+
+    @Override
+    public long getGoldValueOfBrokenItems() {
+        return goldValueOfBrokenItems.sum();
+    }
+
+    @Override
+    public long getTreasuresFound() {
+        return treasuresFound.sum();
+    }
+}
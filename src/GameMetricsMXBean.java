@@ -0,0 +1,42 @@
+import java.util.Map;
+
+/**
+ * The management interface of GameMetrics, as seen over JMX.<p>
+ * Per-action figures are keyed by the menu letter (b, s, e, m, l, h, d), with everything else under "other".
+ */
+
+public interface GameMetricsMXBean {
+    Map<String, Long> getActionCounts();
+
+    Map<String, Double> getActionMeanMicros();
+
+    Map<String, Double> getActionP50Micros();
+
+    Map<String, Double> getActionP99Micros();
+
+    long getBrawlsWon();
+
+    long getBrawlsLost();
+
+    long getGoldWonInBrawls();
+
+    long getGoldLostInBrawls();
+
+    long getDigs();
+
+    long getGoldDug();
+
+    long getItemsBought();
+
+    long getGoldSpentInShops();
+
+    long getItemsSold();
+
+    long getGoldEarnedInShops();
+
+    long getItemsBroken();
+
+    long getGoldValueOfBrokenItems();
+
+    long getTreasuresFound();
+}
@@ -0,0 +1,315 @@
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * The GameModel describes a game of Treasure Hunter at one difficulty as a Markov decision process.<p>
+ * A state is packed into an int:
+ * <pre>
+ *   bits 0-2    town flags: searched in bit 0, dug in bit 1, tough town in bit 2
+ *   bits 3-5    town terrain kind
+ *   bits 6-8    treasures collected, one bit per treasure ordinal
+ *   bits 9-16   kit, one bit per item ordinal
+ *   bits 17-    gold, capped at the model's maximum
+ * </pre>
+ * so every state is also an index into a table of getStateCount() entries. The town's treasure is not part of the
+ * state, because the player cannot know it until they hunt; hunting finds each treasure or dust with equal chance.<p>
+ * The probabilities are the ones Town and Shop roll with. Gold above the cap is counted as the cap, so values
+ * computed from the model are a slight underestimate for very rich hunters.
+ */
+
+public class GameModel {
+    public static final int SEARCHED = 1;
+    public static final int DUG = 1 << 1;
+    public static final int TOUGH = 1 << 2;
+
+    private static final int KIND_SHIFT = 3;
+    private static final int TREASURE_SHIFT = 6;
+    private static final int KIT_SHIFT = 9;
+    private static final int GOLD_SHIFT = 17;
+
+    private static final Item[] ITEMS = Item.values();
+    private static final Treasure[] TREASURES = Treasure.values();
+    private static final int ALL_TREASURES = (1 << Treasure.COLLECTIBLE_COUNT) - 1;
+
+    /**
+     * Actions 0 to SELL - 1 buy the item with that ordinal, and the next SELL actions sell it.
+     */
+    public static final int SELL = 8;
+    public static final int MOVE = 2 * SELL;
+    public static final int TROUBLE = MOVE + 1;
+    public static final int HUNT = MOVE + 2;
+    public static final int DIG = MOVE + 3;
+    public static final int ACTIONS = MOVE + 4;
+
+    static {
+        if (ITEMS.length != SELL)
+            throw new ExceptionInInitializerError("GameModel.SELL must equal the number of items");
+    }
+
+    // instance variables
+    private final Difficulty difficulty;
+    private final PriceTable prices;
+    private final int maxGold;
+
+    /**
+     * @param difficulty The difficulty being modelled.
+     * @param maxGold The most gold a state can hold.
+     */
+    public GameModel(Difficulty difficulty, int maxGold) {
+        this.difficulty = difficulty;
+        this.prices = difficulty.getPrices();
+        this.maxGold = maxGold;
+    }
+
+    // accessors
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public int getMaxGold() {
+        return maxGold;
+    }
+
+    /**
+     * @return The size of a table indexed by state.
+     */
+    public int getStateCount() {
+        return (maxGold + 1) << GOLD_SHIFT;
+    }
+
+    /**
+     * Packs a state.
+     *
+     * @param gold The hunter's gold, which must not be negative. Gold above the cap is capped.
+     * @param kit The hunter's kit, one bit per item ordinal.
+     * @param treasures The treasures collected, one bit per treasure ordinal.
+     * @param kind The town's terrain kind.
+     * @param flags The town's SEARCHED, DUG and TOUGH flags.
+     * @return The state.
+     */
+    public int state(int gold, int kit, int treasures, int kind, int flags) {
+        return Math.min(gold, maxGold) << GOLD_SHIFT | kit << KIT_SHIFT | treasures << TREASURE_SHIFT
+                | kind << KIND_SHIFT | flags;
+    }
+
+    /**
+     * Packs the state of a game in progress.
+     *
+     * @param hunter The hunter.
+     * @param town The town the hunter is in.
+     * @return The state.
+     */
+    public int state(Hunter hunter, Town town) {
+        int kit = 0;
+        for (Item item : ITEMS) {
+            if (hunter.hasItemInKit(item))
+                kit |= 1 << item.ordinal();
+        }
+        int treasures = 0;
+        for (int i = 0; i < Treasure.COLLECTIBLE_COUNT; i++) {
+            if (hunter.hasItemInTreasureInventory(TREASURES[i]))
+                treasures |= 1 << i;
+        }
+        int flags = (town.isAlreadySearched() ? SEARCHED : 0) | (town.isDug() ? DUG : 0) | (town.isToughTown() ? TOUGH : 0);
+        return state(Math.max(hunter.getGold(), 0), kit, treasures, town.getTerrain().getKind(), flags);
+    }
+
+    public static int gold(int state) {
+        return state >>> GOLD_SHIFT;
+    }
+
+    public static int kit(int state) {
+        return (state >>> KIT_SHIFT) & 0xFF;
+    }
+
+    public static int treasures(int state) {
+        return (state >>> TREASURE_SHIFT) & 7;
+    }
+
+    public static int kind(int state) {
+        return (state >>> KIND_SHIFT) & 7;
+    }
+
+    public static int flags(int state) {
+        return state & 7;
+    }
+
+    /**
+     * @param state A packed state.
+     * @return Whether the index is a state the game can be in without having ended.
+     */
+    public boolean isPlayable(int state) {
+        return kind(state) < Terrain.KINDS && treasures(state) != ALL_TREASURES
+                && (difficulty.isSamurai() || (kit(state) & 1 << Item.KATANA.ordinal()) == 0);
+    }
+
+    /**
+     * @param state A packed state.
+     * @param action An action.
+     * @return Whether the action does anything in the state.
+     */
+    public boolean isAvailable(int state, int action) {
+        int kit = kit(state);
+        if (action < SELL) {
+            int price = prices.getBuyPrice(ITEMS[action]);
+            return price >= 0 && (kit & 1 << action) == 0 && (gold(state) >= price || hasKatana(kit));
+        }
+        if (action < MOVE)
+            return (kit & 1 << (action - SELL)) != 0 && prices.getSellPrice(ITEMS[action - SELL]) > 0;
+        return switch (action) {
+            case MOVE -> canCross(kit, Terrain.of(kind(state)));
+            case HUNT -> (flags(state) & SEARCHED) == 0;
+            case DIG -> (flags(state) & DUG) == 0 && (kit & 1 << Item.SHOVEL.ordinal()) != 0;
+            default -> true;
+        };
+    }
+
+    /**
+     * @param state A packed state.
+     * @param action An action available in the state.
+     * @return The chance that the action leaves the game in the same state.
+     */
+    public double stayProbability(int state, int action) {
+        if (action != TROUBLE)
+            return 0;
+        return (flags(state) & TOUGH) != 0 ? 0.4 : 0.7;
+    }
+
+    /**
+     * Works out the expected value of taking an action, given the value of every state it can lead to.
+     * Winning is worth 1 and losing is worth 0.
+     *
+     * @param state A packed state.
+     * @param action An action available in the state.
+     * @param value The value of each state.
+     * @return The expected value.
+     */
+    public double expectedValue(int state, int action, IntToDoubleFunction value) {
+        return expectedValue(state, action, value, 1);
+    }
+
+    /**
+     * Works out the expected value of taking an action, given the value of every state it can lead to
+     * and of winning. Losing is worth 0.
+     *
+     * @param state A packed state.
+     * @param action An action available in the state.
+     * @param value The value of each state.
+     * @param win The value of winning.
+     * @return The expected value.
+     */
+    public double expectedValue(int state, int action, IntToDoubleFunction value, double win) {
+        int gold = gold(state);
+        int kit = kit(state);
+        int treasures = treasures(state);
+        int kind = kind(state);
+        int flags = flags(state);
+
+        if (action < SELL) {
+            int cost = hasKatana(kit) ? 0 : prices.getBuyPrice(ITEMS[action]);
+            return value.applyAsDouble(state(gold - cost, kit | 1 << action, treasures, kind, flags));
+        }
+        if (action < MOVE) {
+            int item = action - SELL;
+            int price = prices.getSellPrice(ITEMS[item]);
+            return value.applyAsDouble(state(gold + price, kit & ~(1 << item), treasures, kind, flags));
+        }
+
+        return switch (action) {
+            case MOVE -> {
+                Terrain terrain = Terrain.of(kind);
+                if (terrain.getSecondaryItem() == Item.KATANA && hasKatana(kit))
+                    yield newTown(gold, kit, treasures, value);
+                double breakChance = difficulty.getBreakChance();
+                double kept = breakChance < 1 ? newTown(gold, kit, treasures, value) : 0;
+                double broke = breakChance > 0
+                        ? newTown(gold, kit & ~(1 << terrain.getNeededItem().ordinal()), treasures, value) : 0;
+                yield (1 - breakChance) * kept + breakChance * broke;
+            }
+            case TROUBLE -> {
+                boolean tough = (flags & TOUGH) != 0;
+                double noTrouble = tough ? 0.4 : 0.7;
+                double fightDifficulty = tough ? difficulty.getToughness() : 0.8 * difficulty.getToughness();
+                double winChance = hasKatana(kit) ? 1 : 1 - fightDifficulty;
+                AliasTable brawlGold = difficulty.getBrawlGold();
+                double brawl = 0;
+                for (int i = 0; i < brawlGold.size(); i++) {
+                    int diff = i + 1;
+                    double weight = brawlGold.getWeight(i);
+                    brawl += weight * winChance * value.applyAsDouble(state(gold + diff, kit, treasures, kind, flags));
+                    if (gold - diff >= 0 && winChance < 1)
+                        brawl += weight * (1 - winChance) * value.applyAsDouble(state(gold - diff, kit, treasures, kind, flags));
+                }
+                yield noTrouble * value.applyAsDouble(state) + (1 - noTrouble) * brawl / brawlGold.getTotalWeight();
+            }
+            case HUNT -> {
+                AliasTable hidden = difficulty.getTreasures();
+                double total = hidden.getWeight(Treasure.DUST.ordinal()) * value.applyAsDouble(state | SEARCHED);
+                for (int i = 0; i < Treasure.COLLECTIBLE_COUNT; i++) {
+                    int found = treasures | 1 << i;
+                    total += hidden.getWeight(i)
+                            * (found == ALL_TREASURES ? win : value.applyAsDouble(state(gold, kit, found, kind, flags | SEARCHED)));
+                }
+                yield total / hidden.getTotalWeight();
+            }
+            case DIG -> {
+                AliasTable digGold = difficulty.getDigGold();
+                double found = 0;
+                for (int i = 0; i < digGold.size(); i++)
+                    found += digGold.getWeight(i) * value.applyAsDouble(state(gold + i + 1, kit, treasures, kind, flags | DUG));
+                yield 0.5 * value.applyAsDouble(state | DUG) + 0.5 * found / digGold.getTotalWeight();
+            }
+            default -> throw new IllegalArgumentException("No such action: " + action);
+        };
+    }
+
+    /**
+     * @param action An action.
+     * @return What the action is called, e.g. "buy rope".
+     */
+    public static String describe(int action) {
+        if (action < SELL)
+            return "buy " + ITEMS[action].getName();
+        if (action < MOVE)
+            return "sell " + ITEMS[action - SELL].getName();
+        return switch (action) {
+            case MOVE -> "move";
+            case TROUBLE -> "look for trouble";
+            case HUNT -> "hunt";
+            case DIG -> "dig";
+            default -> "nothing";
+        };
+    }
+
+    /**
+     * Works out the expected value of arriving in a brand-new town, such as at the start of a game.
+     *
+     * @param gold The hunter's gold.
+     * @param kit The hunter's kit.
+     * @param treasures The treasures collected.
+     * @param value The value of each state.
+     * @return The expected value.
+     */
+    public double newTown(int gold, int kit, int treasures, IntToDoubleFunction value) {
+        double toughness = difficulty.getToughness();
+        AliasTable terrains = difficulty.getTerrains();
+        double total = 0;
+        for (int kind = 0; kind < Terrain.KINDS; kind++) {
+            double weight = terrains.getWeight(kind);
+            if (toughness > 0)
+                total += weight * toughness * value.applyAsDouble(state(gold, kit, treasures, kind, TOUGH));
+            if (toughness < 1)
+                total += weight * (1 - toughness) * value.applyAsDouble(state(gold, kit, treasures, kind, 0));
+        }
+        return total / terrains.getTotalWeight();
+    }
+
+    private static boolean hasKatana(int kit) {
+        return (kit & 1 << Item.KATANA.ordinal()) != 0;
+    }
+
+    private static boolean canCross(int kit, Terrain terrain) {
+        Item secondary = terrain.getSecondaryItem();
+        return (kit & 1 << terrain.getNeededItem().ordinal()) != 0
+                || (secondary != null && (kit & 1 << secondary.ordinal()) != 0);
+    }
+}
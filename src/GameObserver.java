@@ -0,0 +1,97 @@
+/**
+ * A GameObserver is told about every change the game makes to a hunter or a town.<p>
+ * Every method does nothing by default, so an observer only overrides what it cares about.
+ * Observers subscribe to a game's EventBus, and are called on one of its dispatcher threads, one game's changes
+ * at a time and in the order they happened.
+ */
+
+public interface GameObserver {
+    /**
+     * An observer that ignores everything.
+     */
+    GameObserver NONE = new GameObserver() { };
+
+    /**
+     * The player made a choice from the menu and it has been carried out.
+     *
+     * @param action The menu choice, as typed.
+     * @param nanos How long carrying it out took.
+     */
+    default void turnPlayed(String action, long nanos) {
+    }
+
+    /**
+     * The player has chosen a difficulty and their hunter has been created.
+     *
+     * @param hunter The new hunter, including any items it starts with.
+     * @param difficulty The difficulty of the game.
+     */
+    default void gameStarted(Hunter hunter, Difficulty difficulty) {
+    }
+
+    /**
+     * A new town has been rolled.
+     *
+     * @param treasure The treasure hidden in the town.
+     * @param terrain The terrain surrounding the town.
+     * @param toughTown Whether the town is a tough town.
+     */
+    default void townCreated(Treasure treasure, Terrain terrain, boolean toughTown) {
+    }
+
+    /**
+     * The hunter went back to a town of their world that was made earlier, so it becomes the current town again.
+     *
+     * @param treasure The treasure hidden in the town.
+     * @param terrain The terrain surrounding the town.
+     * @param toughTown Whether the town is a tough town.
+     * @param searched Whether the town has already been searched.
+     * @param dug Whether the town has already been dug.
+     */
+    default void townRevisited(Treasure treasure, Terrain terrain, boolean toughTown, boolean searched, boolean dug) {
+    }
+
+    /**
+     * @param item The item the hunter bought.
+     * @param cost The gold the hunter actually paid.
+     */
+    default void itemBought(Item item, int cost) {
+    }
+
+    /**
+     * @param item The item the hunter sold.
+     * @param price The gold the hunter received.
+     */
+    default void itemSold(Item item, int price) {
+    }
+
+    /**
+     * @param won Whether the hunter won the brawl.
+     * @param gold The gold won or lost.
+     */
+    default void brawl(boolean won, int gold) {
+    }
+
+    /**
+     * The hunter searched the town for treasure.
+     *
+     * @param treasure What was found.
+     * @param kept Whether it was added to the hunter's collection.
+     */
+    default void treasureHunted(Treasure treasure, boolean kept) {
+    }
+
+    /**
+     * The hunter dug for gold in the town.
+     *
+     * @param gold The gold dug up, which may be 0.
+     */
+    default void dug(int gold) {
+    }
+
+    /**
+     * @param item The item that broke while crossing terrain.
+     */
+    default void itemBroke(Item item) {
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * The GameResult class holds the outcome of one finished game of Treasure Hunter.
+ */
+
+public class GameResult {
+    /**
+     * How a game came to an end.
+     */
+    public enum Outcome {
+        WIN,
+        LOSS,
+        QUIT
+    }
+
+    // instance variables
+    private final Outcome outcome;
+    private final int gold;
+    private final int treasures;
+    private final int turns;
+
+    /**
+     * @param outcome How the game ended.
+     * @param gold The gold the hunter finished with.
+     * @param treasures The number of treasures the hunter collected.
+     * @param turns The number of menu choices the player made.
+     */
+    public GameResult(Outcome outcome, int gold, int treasures, int turns) {
+        this.outcome = outcome;
+        this.gold = gold;
+        this.treasures = treasures;
+        this.turns = turns;
+    }
+
+    // accessors
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public boolean isWin() {
+        return outcome == Outcome.WIN;
+    }
+
+    public int getGold() {
+        return gold;
+    }
+
+    public int getTreasures() {
+        return treasures;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    @Override
+    public String toString() {
+        return outcome + " with " + gold + " gold and " + treasures + " treasures after " + turns + " turns";
+    }
+}
@@ -0,0 +1,132 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The GameServer hosts many games of Treasure Hunter at once over TCP.<p>
+ * Every connection gets its own game on its own virtual thread, with its own input, output and random numbers.
+ * All sessions report to the process-wide GameMetrics, which can be read over JMX.
+ * The protocol is line based:
+ * <ul>
+ *     <li>the server sends the text of each turn, followed by a prompt line such as <code>?MENU</code></li>
+ *     <li>the client answers every prompt line with exactly one line</li>
+ *     <li>when the game ends the server sends <code>!WIN</code>, <code>!LOSS</code> or <code>!QUIT</code> and closes the connection</li>
+ *     <li>if the game fails with an error, the server sends <code>!ERROR</code>, reports the error on the server and
+ *     closes the connection</li>
+ * </ul>
+ */
+
+public class GameServer {
+    // static variables
+    private static final int BACKLOG = 16384;
+
+    // instance variables
+    private final int port;
+    private Leaderboard leaderboard;
+    private boolean globalMarket;
+
+    /**
+     * @param port The TCP port to listen on.
+     */
+    public GameServer(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Sets where every session's won and lost games are ranked. Must be called before serving.
+     *
+     * @param leaderboard The leaderboard, or null to not rank games.
+     */
+    public void setLeaderboard(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    /**
+     * Makes every session's shops trade at the market shared by all sessions of the same difficulty.
+     * Must be called before serving.
+     *
+     * @param globalMarket Whether shops use the shared market.
+     */
+    public void setGlobalMarket(boolean globalMarket) {
+        this.globalMarket = globalMarket;
+    }
+
+    /**
+     * Accepts connections until the server socket fails. Each connection is played on a new virtual thread.
+     *
+     * @throws IOException If the server socket cannot be opened.
+     */
+    public void serve() throws IOException {
+        try (ServerSocket server = new ServerSocket(port, BACKLOG);
+             ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor()) {
+            System.out.println("Treasure Hunter server listening on port " + server.getLocalPort());
+            while (!server.isClosed()) {
+                Socket socket = server.accept();
+                sessions.execute(() -> playSession(socket));
+            }
+        }
+    }
+
+    /**
+     * Plays one game over a connection and closes it afterwards.
+     *
+     * @param socket The player's connection.
+     */
+    private void playSession(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            GameResult result;
+            try {
+                TreasureHunter game = new TreasureHunter(new StreamOutput(out), new StreamPolicy(in, out), new SplittableRandom());
+                game.addObserver(GameMetrics.global());
+                game.setLeaderboard(leaderboard);
+                game.setGlobalMarket(globalMarket);
+                result = game.play();
+            }
+            catch (UncheckedIOException e) {
+                throw e;
+            }
+            catch (RuntimeException e) {
+                // a bug rather than the player: report it here, since the executor would keep it to itself
+                out.write("!ERROR\n");
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                return;
+            }
+            out.write("!" + result.getOutcome() + "\n");
+        }
+        catch (IOException | UncheckedIOException e) {
+            // the player went away; nothing else depends on this session
+        }
+    }
+
+    /**
+     * Starts the server.<p>
+     * Arguments: [port] [leaderboard file] [--market]
+     */
+    public static void main(String[] args) throws IOException {
+        boolean market = args.length > 0 && args[args.length - 1].equals("--market");
+        if (market)
+            args = Arrays.copyOf(args, args.length - 1);
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        GameServer server = new GameServer(port);
+        if (args.length > 1)
+            server.setLeaderboard(new Leaderboard(Path.of(args[1])));
+        server.setGlobalMarket(market);
+        server.serve();
+    }
+}
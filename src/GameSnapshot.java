@@ -0,0 +1,276 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * The GameSnapshot class saves a running game to a compact binary form and restores it again.<p>
+ * Format version 1:
+ * <pre>
+ *   2 bytes  magic "TH"
+ *   1 byte   version
+ *   1 byte   difficulty: 0 easy, 1 normal, 2 hard, 3 samurai, 255 custom
+ *            (custom is followed by starting gold as a varint, markdown, toughness and breakChance
+ *            as 8 byte doubles, and a samurai byte)
+ *   varint   turns taken
+ *   varint   name length, then the name as UTF-8
+ *   varint   gold, zigzag encoded
+ *   n bytes  kit, one bit per item ordinal (n = items / 8 rounded up)
+ *   1 byte   treasures collected, one bit per treasure ordinal
+ *   1 byte   town treasure ordinal
+ *   1 byte   town terrain kind in bits 0-2, tough town in bit 3, searched in bit 4, dug in bit 5
+ * </pre>
+ * A normal game saves in about 15 bytes plus the length of the hunter's name.
+ */
+
+public class GameSnapshot {
+    public static final int VERSION = 1;
+
+    private static final byte MAGIC_0 = 'T';
+    private static final byte MAGIC_1 = 'H';
+    private static final int CUSTOM = 255;
+    private static final Difficulty[] STANDARD = {Difficulty.EASY, Difficulty.NORMAL, Difficulty.HARD, Difficulty.SAMURAI};
+    private static final Item[] ITEMS = Item.values();
+    private static final Treasure[] TREASURES = Treasure.values();
+    private static final int KIT_BYTES = (ITEMS.length + 7) / 8;
+
+    // the bits of an encoded town
+    private static final int TERRAIN_BITS = 7;
+    private static final int TOUGH_BIT = 1 << 3;
+    private static final int SEARCHED_BIT = 1 << 4;
+    private static final int DUG_BIT = 1 << 5;
+    private static final int TREASURE_SHIFT = 8;
+
+    /**
+     * Saves a game that is in progress.
+     *
+     * @param game A game that has started and not yet finished.
+     * @return The snapshot.
+     */
+    public static byte[] save(TreasureHunter game) {
+        Hunter hunter = game.getHunter();
+        Town town = game.getCurrentTown();
+        Difficulty difficulty = game.getDifficulty();
+        byte[] name = hunter.getHunterName().getBytes(StandardCharsets.UTF_8);
+
+        byte[] out = new byte[64 + name.length + KIT_BYTES];
+        int pos = 0;
+        out[pos++] = MAGIC_0;
+        out[pos++] = MAGIC_1;
+        out[pos++] = VERSION;
+
+        int id = standardId(difficulty);
+        out[pos++] = (byte) id;
+        if (id == CUSTOM) {
+            pos = putVarint(out, pos, difficulty.getStartingGold());
+            pos = putDouble(out, pos, difficulty.getMarkdown());
+            pos = putDouble(out, pos, difficulty.getToughness());
+            pos = putDouble(out, pos, difficulty.getBreakChance());
+            out[pos++] = (byte) (difficulty.isSamurai() ? 1 : 0);
+        }
+
+        pos = putVarint(out, pos, game.getTurns());
+        pos = putVarint(out, pos, name.length);
+        System.arraycopy(name, 0, out, pos, name.length);
+        pos += name.length;
+        pos = putVarint(out, pos, zigzag(hunter.getGold()));
+
+        for (Item item : ITEMS) {
+            if (hunter.hasItemInKit(item))
+                out[pos + item.ordinal() / 8] |= (byte) (1 << (item.ordinal() % 8));
+        }
+        pos += KIT_BYTES;
+
+        int treasures = 0;
+        for (Treasure treasure : TREASURES) {
+            if (hunter.hasItemInTreasureInventory(treasure))
+                treasures |= 1 << treasure.ordinal();
+        }
+        out[pos++] = (byte) treasures;
+
+        int code = encodeTown(town);
+        out[pos++] = (byte) (code >>> 8);
+        out[pos++] = (byte) code;
+
+        return Arrays.copyOf(out, pos);
+    }
+
+    /**
+     * Restores a saved game. Call resume() on the result to carry on playing.
+     *
+     * @param data A snapshot made by save().
+     * @param window Where the restored game is displayed.
+     * @param policy Where the player's answers come from.
+     * @param rng The restored game's source of random numbers.
+     * @return The restored game.
+     * @throws IllegalArgumentException If the data is not a snapshot this version can read, or is cut short or corrupt.
+     */
+    public static TreasureHunter restore(byte[] data, OutputSink window, DecisionPolicy policy, RandomGenerator rng) {
+        if (data.length < 4 || data[0] != MAGIC_0 || data[1] != MAGIC_1)
+            throw new IllegalArgumentException("Not a Treasure Hunter save");
+        if (data[2] != VERSION)
+            throw new IllegalArgumentException("Unsupported save version " + data[2]);
+
+        int[] pos = {3};
+        Difficulty difficulty;
+        int id = data[pos[0]++] & 0xFF;
+        if (id == CUSTOM) {
+            int startingGold = getVarint(data, pos);
+            double markdown = getDouble(data, pos);
+            double toughness = getDouble(data, pos);
+            double breakChance = getDouble(data, pos);
+            boolean samurai = getByte(data, pos) == 1;
+            difficulty = new Difficulty("Custom", startingGold, markdown, toughness, breakChance, samurai);
+        }
+        else if (id < STANDARD.length)
+            difficulty = STANDARD[id];
+        else
+            throw new IllegalArgumentException("Unknown difficulty " + id + " in save");
+
+        int turns = getVarint(data, pos);
+        int nameLength = getVarint(data, pos);
+        if (nameLength < 0 || nameLength > data.length - pos[0])
+            throw new IllegalArgumentException("Save is cut short");
+        String name = new String(data, pos[0], nameLength, StandardCharsets.UTF_8);
+        pos[0] += nameLength;
+        int gold = unzigzag(getVarint(data, pos));
+
+        Hunter hunter = new Hunter(name, gold, window);
+        need(data, pos, KIT_BYTES);
+        for (Item item : ITEMS) {
+            if ((data[pos[0] + item.ordinal() / 8] & (1 << (item.ordinal() % 8))) != 0)
+                hunter.addItemToKit(item);
+        }
+        pos[0] += KIT_BYTES;
+
+        int treasures = getByte(data, pos);
+        for (Treasure treasure : TREASURES) {
+            if ((treasures & (1 << treasure.ordinal())) != 0)
+                hunter.addTreasure(treasure);
+        }
+
+        int townCode = (getByte(data, pos) & 0xFF) << 8;
+        townCode |= getByte(data, pos) & 0xFF;
+        if ((townCode >>> TREASURE_SHIFT) >= TREASURES.length || (townCode & TERRAIN_BITS) >= Terrain.KINDS)
+            throw new IllegalArgumentException("Corrupt town in save: " + Integer.toHexString(townCode));
+
+        TreasureHunter game = new TreasureHunter(window, policy, rng);
+        game.restoreState(hunter, difficulty, turns, townCode);
+        return game;
+    }
+
+    /**
+     * Encodes everything about a town that is not fixed by the difficulty: its treasure ordinal in the high byte,
+     * and its terrain kind in bits 0-2, tough town in bit 3, searched in bit 4 and dug in bit 5 of the low byte.
+     *
+     * @param town The town.
+     * @return The town in 16 bits.
+     */
+    static int encodeTown(Town town) {
+        int flags = town.getTerrain().getKind();
+        if (town.isToughTown())
+            flags |= TOUGH_BIT;
+        if (town.isAlreadySearched())
+            flags |= SEARCHED_BIT;
+        if (town.isDug())
+            flags |= DUG_BIT;
+        return town.getTreasure().ordinal() << TREASURE_SHIFT | flags;
+    }
+
+    /**
+     * @param code A town encoded by encodeTown.
+     * @return The terrain surrounding the town.
+     */
+    static Terrain terrainOf(int code) {
+        return Terrain.of(code & TERRAIN_BITS);
+    }
+
+    /**
+     * @param code A town encoded by encodeTown.
+     * @return Whether the town has already been searched.
+     */
+    static boolean isSearched(int code) {
+        return (code & SEARCHED_BIT) != 0;
+    }
+
+    /**
+     * Rebuilds a town encoded by encodeTown.
+     *
+     * @param code The encoded town.
+     * @param shop The town's shoppe.
+     * @param difficulty The difficulty of the game the town is in.
+     * @return The town.
+     */
+    static Town decodeTown(int code, Shop shop, Difficulty difficulty) {
+        Town town = new Town(shop, difficulty, TREASURES[(code >>> TREASURE_SHIFT) & 0xFF], terrainOf(code),
+                (code & TOUGH_BIT) != 0);
+        town.restoreProgress(isSearched(code), (code & DUG_BIT) != 0);
+        return town;
+    }
+
+    private static int standardId(Difficulty difficulty) {
+        for (int i = 0; i < STANDARD.length; i++) {
+            if (STANDARD[i] == difficulty)
+                return i;
+        }
+        return CUSTOM;
+    }
+
+    private static int zigzag(int n) {
+        return (n << 1) ^ (n >> 31);
+    }
+
+    private static int unzigzag(int n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    private static int putVarint(byte[] out, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    /**
+     * @throws IllegalArgumentException If the data ends before count more bytes.
+     */
+    private static void need(byte[] data, int[] pos, int count) {
+        if (pos[0] + count > data.length)
+            throw new IllegalArgumentException("Save is cut short");
+    }
+
+    private static byte getByte(byte[] data, int[] pos) {
+        need(data, pos, 1);
+        return data[pos[0]++];
+    }
+
+    private static int getVarint(byte[] data, int[] pos) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 28)
+                throw new IllegalArgumentException("Corrupt number in save");
+            b = getByte(data, pos);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int putDouble(byte[] out, int pos, double value) {
+        long bits = Double.doubleToLongBits(value);
+        for (int i = 0; i < 8; i++)
+            out[pos++] = (byte) (bits >>> (8 * i));
+        return pos;
+    }
+
+    private static double getDouble(byte[] data, int[] pos) {
+        need(data, pos, 8);
+        long bits = 0;
+        for (int i = 0; i < 8; i++)
+            bits |= (data[pos[0]++] & 0xFFL) << (8 * i);
+        return Double.longBitsToDouble(bits);
+    }
+}
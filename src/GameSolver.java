@@ -0,0 +1,270 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * The GameSolver works out the best possible chance of winning a game of Treasure Hunter, and the moves that get it,
+ * by value iteration over every state of a GameModel.<p>
+ * Values live in one array indexed by the packed state, which serves as a transposition table with a perfect hash:
+ * no keys are stored and no state is ever looked up twice in a sweep. Each sweep is split by gold across cores with
+ * fork/join and updates the array in place. Values only ever rise towards the answer, so a sweep that reads a
+ * neighbour's value before or after another thread updates it still converges.<p>
+ * Many moves often tie for the best chance of winning (on easy every sensible move wins for certain), and some of them
+ * go nowhere, like buying and selling the same item forever. So a second pass works out the expected length of the
+ * game, and among the moves that tie the policy picks the one that ends the game soonest.<p>
+ * Looking for trouble can leave the game unchanged; rather than iterate that loop, each state solves it directly.
+ */
+
+public class GameSolver {
+    // static variables
+    private static final int NO_ACTION = -1;
+    private static final double TIE = 1e-6;
+
+    // instance variables
+    private final GameModel model;
+    private final double[] values;
+    private final IntToDoubleFunction value;
+    private double[] turns;
+    private IntToDoubleFunction turnsLeft;
+    private int[] bestMoves;
+    private byte[] bestActions;
+
+    /**
+     * @param model The game to solve.
+     */
+    public GameSolver(GameModel model) {
+        this.model = model;
+        values = new double[model.getStateCount()];
+        value = state -> values[state];
+    }
+
+    // accessors
+    public GameModel getModel() {
+        return model;
+    }
+
+    /**
+     * Sweeps the states until no chance of winning changes by more than the tolerance,
+     * then works out the quickest of the best moves in every state.
+     *
+     * @param tolerance The largest change in a sweep at which the values count as solved.
+     * @param maxSweeps The most sweeps to make in each pass.
+     * @return The number of sweeps made.
+     */
+    public int solve(double tolerance, int maxSweeps) {
+        int sweeps = sweep(this::updateValue, tolerance, maxSweeps);
+
+        bestMoves = new int[values.length];
+        for (int state = 0; state < values.length; state++) {
+            if (model.isPlayable(state))
+                bestMoves[state] = tiedBest(state);
+        }
+        turns = new double[values.length];
+        turnsLeft = state -> turns[state];
+        sweeps += sweep(this::updateTurns, tolerance * 1000, maxSweeps);
+
+        bestActions = new byte[values.length];
+        for (int state = 0; state < values.length; state++)
+            bestActions[state] = (byte) (model.isPlayable(state) ? quickest(state) : NO_ACTION);
+        bestMoves = null;
+        return sweeps;
+    }
+
+    /**
+     * @param state A packed state.
+     * @return The best chance of winning from the state.
+     */
+    public double getValue(int state) {
+        return values[state];
+    }
+
+    /**
+     * @param state A packed state.
+     * @return The expected number of turns left in the game when playing the best moves.
+     */
+    public double getTurnsLeft(int state) {
+        return turns[state];
+    }
+
+    /**
+     * @param state A packed state the game can be in.
+     * @return The action with the best chance of winning, or -1 if nothing can be done.
+     */
+    public int getBestAction(int state) {
+        return bestActions[state];
+    }
+
+    /**
+     * @return The best chance of winning a game from its start, before the first town is known.
+     */
+    public double getWinProbability() {
+        return model.newTown(model.getDifficulty().getStartingGold(), 0, 0, value);
+    }
+
+    /**
+     * Sweeps every playable state until a sweep changes nothing by more than the tolerance.
+     *
+     * @param update Updates one state and returns how much it changed.
+     * @return The number of sweeps made.
+     */
+    private int sweep(IntToDoubleFunction update, double tolerance, int maxSweeps) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int sweeps = 0;
+        double change;
+        do {
+            change = pool.invoke(new SweepTask(update, 0, model.getMaxGold() + 1));
+            sweeps++;
+        } while (change > tolerance && sweeps < maxSweeps);
+        return sweeps;
+    }
+
+    private double updateValue(int state) {
+        double best = 0;
+        for (int action = 0; action < GameModel.ACTIONS; action++) {
+            if (model.isAvailable(state, action))
+                best = Math.max(best, solvedValue(state, action));
+        }
+        double change = best - values[state];
+        values[state] = best;
+        return change;
+    }
+
+    private double updateTurns(int state) {
+        double best = Double.MAX_VALUE;
+        for (int moves = bestMoves[state]; moves != 0; moves &= moves - 1)
+            best = Math.min(best, solvedTurns(state, Integer.numberOfTrailingZeros(moves)));
+        if (best == Double.MAX_VALUE)
+            best = 0;
+        double change = Math.abs(best - turns[state]);
+        turns[state] = best;
+        return change;
+    }
+
+    /**
+     * @return The chance of winning by taking the action, and taking it again for as long as it leaves the game
+     *         unchanged.
+     */
+    private double solvedValue(int state, int action) {
+        double stay = model.stayProbability(state, action);
+        double expected = model.expectedValue(state, action, value);
+        return stay == 0 ? expected : (expected - stay * values[state]) / (1 - stay);
+    }
+
+    /**
+     * @return The expected turns left after taking the action, and taking it again for as long as it leaves the game
+     *         unchanged.
+     */
+    private double solvedTurns(int state, int action) {
+        double stay = model.stayProbability(state, action);
+        double expected = 1 + model.expectedValue(state, action, turnsLeft, 0);
+        return stay == 0 ? expected : (expected - stay * turns[state]) / (1 - stay);
+    }
+
+    /**
+     * @return The actions whose chance of winning is within TIE of the best, one bit per action.
+     */
+    private int tiedBest(int state) {
+        double[] actionValues = new double[GameModel.ACTIONS];
+        double best = 0;
+        for (int action = 0; action < GameModel.ACTIONS; action++) {
+            actionValues[action] = model.isAvailable(state, action) ? solvedValue(state, action) : -1;
+            best = Math.max(best, actionValues[action]);
+        }
+        int moves = 0;
+        for (int action = 0; action < GameModel.ACTIONS; action++) {
+            if (actionValues[action] >= 0 && actionValues[action] >= best - TIE)
+                moves |= 1 << action;
+        }
+        return moves;
+    }
+
+    /**
+     * @return The best action that ends the game soonest, or -1 if nothing can be done.
+     */
+    private int quickest(int state) {
+        int best = NO_ACTION;
+        double bestTurns = Double.MAX_VALUE;
+        for (int moves = bestMoves[state]; moves != 0; moves &= moves - 1) {
+            int action = Integer.numberOfTrailingZeros(moves);
+            double actionTurns = solvedTurns(state, action);
+            if (actionTurns < bestTurns) {
+                best = action;
+                bestTurns = actionTurns;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Sweeps a range of gold amounts, splitting it in half until the pieces are a single amount.
+     * The richer half is swept first, since most of the game's value flows down from richer states.
+     */
+    @SuppressWarnings("serial") // never serialized: fork/join tasks live and die in one pool
+    private class SweepTask extends RecursiveTask<Double> {
+        private final IntToDoubleFunction update;
+        private final int fromGold;
+        private final int toGold;
+
+        SweepTask(IntToDoubleFunction update, int fromGold, int toGold) {
+            this.update = update;
+            this.fromGold = fromGold;
+            this.toGold = toGold;
+        }
+
+        @Override
+        protected Double compute() {
+            if (toGold - fromGold == 1) {
+                int first = model.state(fromGold, 0, 0, 0, 0);
+                int last = fromGold == model.getMaxGold() ? values.length : model.state(fromGold + 1, 0, 0, 0, 0);
+                double change = 0;
+                for (int state = last - 1; state >= first; state--) {
+                    if (model.isPlayable(state))
+                        change = Math.max(change, update.applyAsDouble(state));
+                }
+                return change;
+            }
+            int mid = (fromGold + toGold) >>> 1;
+            SweepTask poorer = new SweepTask(update, fromGold, mid);
+            poorer.fork();
+            double change = new SweepTask(update, mid, toGold).compute();
+            return Math.max(change, poorer.join());
+        }
+    }
+
+    /**
+     * Solves every standard difficulty, then plays games with the solved policy to check the answer.<p>
+     * Arguments: [max gold] [tolerance] [games to check with]
+     */
+    public static void main(String[] args) {
+        int maxGold = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        double tolerance = args.length > 1 ? Double.parseDouble(args[1]) : 1e-7;
+        long games = args.length > 2 ? Long.parseLong(args[2]) : 100_000;
+
+        Difficulty[] difficulties = {Difficulty.EASY, Difficulty.NORMAL, Difficulty.HARD, Difficulty.SAMURAI};
+        String[] answers = {"e", "n", "h", "s"};
+        for (int i = 0; i < difficulties.length; i++) {
+            GameModel model = new GameModel(difficulties[i], maxGold);
+            GameSolver solver = new GameSolver(model);
+            long start = System.nanoTime();
+            int sweeps = solver.solve(tolerance, 100_000);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-8s win %.6f  (%d states, %d sweeps, %.1f s)%n", difficulties[i].getName(),
+                    solver.getWinProbability(), model.getStateCount(), sweeps, seconds);
+
+            int gold = difficulties[i].getStartingGold();
+            for (int kind = 0; kind < Terrain.KINDS; kind++) {
+                int state = model.state(gold, 0, 0, kind, 0);
+                System.out.printf("  start by the %-9s  win %.4f in %.1f turns, first move: %s%n",
+                        Terrain.of(kind).getTerrainName(), solver.getValue(state), solver.getTurnsLeft(state),
+                        GameModel.describe(solver.getBestAction(state)));
+            }
+
+            String answer = answers[i];
+            SimulationReport report = new SimulationEngine().run(games, new SplittableRandom().nextLong(),
+                    () -> new SolvedPolicy(solver, answer, 10_000));
+            System.out.printf("  played %d games with the solved policy: win %.4f in %.1f turns%n", games,
+                    report.getWinRate(), report.getMeanTurns());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * The GoldLabels class hands out the "N gold" text shown next to amounts of gold.<p>
+ * Labels for the amounts a game usually deals in are made the first time they are asked for and kept, so
+ * showing the hunter's gold every turn creates no garbage. Any other amount gets a new label each time.
+ */
+
+public class GoldLabels {
+    // static variables
+    private static final int MIN = -64;
+    private static final int MAX = 4095;
+    private static final String[] LABELS = new String[MAX - MIN + 1];
+
+    /**
+     * @param gold An amount of gold.
+     * @return The amount followed by " gold".
+     */
+    public static String of(int gold) {
+        if (gold < MIN || gold > MAX)
+            return gold + " gold";
+        // racing threads at worst both make the same immutable label
+        String label = LABELS[gold - MIN];
+        if (label == null) {
+            label = gold + " gold";
+            LABELS[gold - MIN] = label;
+        }
+        return label;
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * The GreedyPolicy is a simple simulated player.<p>
+ * In every town it hunts for treasure, digs if it owns a shovel, buys whatever it needs to cross the terrain
+ * and then moves on. When it cannot afford the item it needs it looks for trouble to earn more gold.
+ */
+
+public class GreedyPolicy implements DecisionPolicy {
+    // instance variables
+    private final String difficulty;
+    private final int maxTurns;
+
+    private Town town;
+    private boolean searched;
+    private boolean dug;
+    private String pendingItem;
+    private int turns;
+
+    /**
+     * @param difficulty The answer given at the difficulty prompt ("e", "n", "h" or "s").
+     * @param maxTurns The number of menu choices after which the policy gives up and exits.
+     */
+    public GreedyPolicy(String difficulty, int maxTurns) {
+        this.difficulty = difficulty;
+        this.maxTurns = maxTurns;
+    }
+
+    @Override
+    public void enteredTown(Town town) {
+        this.town = town;
+        searched = false;
+        dug = false;
+    }
+
+    @Override
+    public String nextLine(Prompt prompt, Hunter hunter) {
+        return switch (prompt) {
+            case NAME -> "bot";
+            case DIFFICULTY -> difficulty;
+            case MENU -> chooseMove(hunter);
+            case BUY_ITEM -> pendingItem == null ? "" : pendingItem;
+            case BUY_CONFIRM -> "y";
+            case SELL_ITEM -> "";
+            case SELL_CONFIRM -> "n";
+            case DESTINATION -> "";
+        };
+    }
+
+    /**
+     * Picks the next menu option.
+     *
+     * @param hunter The hunter being played.
+     * @return The menu option.
+     */
+    private String chooseMove(Hunter hunter) {
+        pendingItem = null;
+        turns++;
+        if (turns > maxTurns)
+            return "x";
+
+        if (!searched) {
+            searched = true;
+            return "h";
+        }
+        if (!dug && hunter.hasItemInKit(Item.SHOVEL)) {
+            dug = true;
+            return "d";
+        }
+
+        Terrain terrain = town.getTerrain();
+        Shop shop = town.getShop();
+        if (!terrain.canCrossTerrain(hunter)) {
+            Item item = terrain.getNeededItem();
+            int cost = shop.checkMarketPrice(item.getName(), true);
+            if (cost >= 0 && hunter.getGold() >= cost) {
+                pendingItem = item.getName();
+                return "b";
+            }
+            return "l";
+        }
+
+        int shovelCost = shop.checkMarketPrice(Item.SHOVEL.getName(), true);
+        if (!hunter.hasItemInKit(Item.SHOVEL) && hunter.getGold() >= 2 * shovelCost) {
+            pendingItem = Item.SHOVEL.getName();
+            return "b";
+        }
+        return "m";
+    }
+}
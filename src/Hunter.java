@@ -1,19 +1,40 @@
-import java.awt.*;
+import java.util.EnumSet;
+import java.util.Set;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 
 /**
  * Hunter Class<br /><br />
  * This class represents the treasure hunter character (the player) in the Treasure Hunt game.
- * This code has been adapted from Ivan Turner's original program -- thank you, Mr. Turner!
+ * This code has been adapted from Ivan Turner's original program -- thank you, Mr. Turner!<p>
+ * A hunter's gold can safely be changed from any thread; the kit and
+ * treasures belong to the hunter's own game session.
  */
 
 public class Hunter {
-    private static OutputWindow WINDOW;
+    // static variables
+    private static final VarHandle GOLD;
+
+    static {
+        try {
+            GOLD = MethodHandles.lookup().findVarHandle(Hunter.class, "gold", int.class);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     //instance variables
+    private OutputSink window;
     private String hunterName;
-    private String[] kit;
-    private int gold;
-    private String[] treasureInventory;
+    private String nameLabel;
+    private String goldLabel;
+    private int labelledGold;
+    private EnumSet<Item> kit;
+    private Item[] kitSlots;
+    private volatile int gold;
+    private EnumSet<Treasure> treasureInventory;
+    private Treasure[] treasureSlots;
 
     /**
      * The base constructor of a Hunter assigns the name to the hunter and an empty kit.
@@ -21,16 +42,16 @@ public class Hunter {
      * @param hunterName The hunter's name.
      * @param startingGold The gold the hunter starts with.
      */
-    public Hunter(String hunterName, int startingGold, boolean samurai, OutputWindow window) {
+    public Hunter(String hunterName, int startingGold, OutputSink window) {
         this.hunterName = hunterName;
-        treasureInventory = new String[3];
+        nameLabel = hunterName + " has ";
+        treasureInventory = EnumSet.noneOf(Treasure.class);
+        treasureSlots = new Treasure[Treasure.COLLECTIBLE_COUNT];
         gold = startingGold;
-        if (samurai)
-            kit = new String[8];
-        else
-            kit = new String[7];
+        kit = EnumSet.noneOf(Item.class);
+        kitSlots = new Item[Item.values().length];
 
-        WINDOW = window;
+        this.window = window;
     }
 
     //Accessors
@@ -48,7 +69,7 @@ public class Hunter {
      * @param modifier Amount to modify gold by.
      */
     public void changeGold(int modifier) {
-        gold += modifier;
+        GOLD.getAndAdd(this, modifier);
     }
 
     /**
@@ -58,12 +79,17 @@ public class Hunter {
      * @param costOfItem The cost of the item.
      * @return true if the item is successfully bought.
      */
-    public boolean buyItem(String item, int costOfItem) {
-        if (costOfItem == -1 || gold < costOfItem || hasItemInKit(item))
+    public boolean buyItem(Item item, int costOfItem) {
+        if (costOfItem == -1 || item == null || hasItemInKit(item))
             return false;
 
-        gold -= costOfItem;
-        addItem(item);
+        int current;
+        do {
+            current = gold;
+            if (current < costOfItem)
+                return false;
+        } while (!GOLD.compareAndSet(this, current, current - costOfItem));
+        addItemToKit(item);
         return true;
     }
 
@@ -75,77 +101,65 @@ public class Hunter {
      * @param buyBackPrice the amount of gold earned from selling the item
      * @return true if the item was successfully sold.
      */
-    public boolean sellItem(String item, int buyBackPrice) {
+    public boolean sellItem(Item item, int buyBackPrice) {
         if (buyBackPrice <= 0 || !hasItemInKit(item))
             return false;
 
-        gold += buyBackPrice;
+        GOLD.getAndAdd(this, buyBackPrice);
         removeItemFromKit(item);
         return true;
     }
 
     /**
-     * Removes an item from the kit by setting the index of the item to null.
+     * Puts an item straight into the kit without paying for it, such as when a saved game is restored.
      *
-     * @param item The item to be removed.
+     * @param item The item to be added.
      */
-    public void removeItemFromKit(String item) {
-        int itmIdx = findItemInKit(item);
-
-        // if item is found
-        if (itmIdx >= 0)
-            kit[itmIdx] = null;
-
+    public void addItemToKit(Item item) {
+        if (kit.add(item))
+            kitSlots[firstEmpty(kitSlots)] = item;
     }
 
     /**
-     * Checks to make sure that the item is not already in the kit.
-     * If not, it assigns the item to an index in the kit with a null value ("empty" position).
+     * Removes an item from the kit.
      *
-     * @param item The item to be added to the kit.
-     * @return true if the item is not in the kit and has been added.
+     * @param item The item to be removed.
      */
-    private boolean addItem(String item) {
-        if (!hasItemInKit(item)) {
-            int idx = emptyPositionInKit();
-            kit[idx] = item;
-            return true;
+    public void removeItemFromKit(Item item) {
+        if (kit.remove(item)) {
+            for (int i = 0; i < kitSlots.length; i++) {
+                if (kitSlots[i] == item)
+                    kitSlots[i] = null;
+            }
         }
+    }
 
-        return false;
+    /**
+     * @return A copy of the items in the kit.
+     */
+    public Set<Item> getKit() {
+        return kit.clone();
     }
 
     /**
-     * Checks if the kit Array has the specified item.
+     * Checks if the kit has the specified item.
      *
      * @param item The search item
      * @return true if the item is found.
      */
-    public boolean hasItemInKit(String item) {
-        if (item == null)
-            return false;
-
-        for (String tmpItem : kit) {
-            if (item.equals(tmpItem))
-                return true;
-        }
-        return false;
+    public boolean hasItemInKit(Item item) {
+        return item != null && kit.contains(item);
     }
 
-     /**
-     * Returns a printable representation of the inventory, which
-     * is a list of the items in kit, with a space between each item.
-     *
-     * @return The printable String representation of the inventory.
+    /**
+     * Prints the inventory to the window: the items in kit, each in its own color and followed by a comma.
+     * Items are listed in the kit's slots: in the order they were bought, each taking the first slot left empty.
      */
     public void printInventory() {
-        for (String item : kit) {
+        for (Item item : kitSlots) {
             if (item != null) {
-                if (item.equals("katana"))
-                    WINDOW.addTextToWindow(item, Color.red);
-                else
-                    WINDOW.addTextToWindow(item, Color.pink);
-                WINDOW.addTextToWindow(", ", Color.white);
+                window.addTextToWindow(item.getName(), item.getColor());
+                window.addTextToWindow(", ", TextColor.WHITE);
             }
         }
     }
@@ -154,102 +168,65 @@ public class Hunter {
      * @return A string representation of the hunter.
      */
     public void infoString() {
-        WINDOW.addTextToWindow(hunterName + " has ", Color.white);
-        WINDOW.addTextToWindow(gold + " gold", Color.orange);
-        if (!kitIsEmpty()) {
-            WINDOW.addTextToWindow(" and ", Color.white);
+        window.addTextToWindow(nameLabel, TextColor.WHITE);
+        int gold = this.gold;
+        if (goldLabel == null || labelledGold != gold) {
+            goldLabel = GoldLabels.of(gold);
+            labelledGold = gold;
+        }
+        window.addTextToWindow(goldLabel, TextColor.ORANGE);
+        if (!kit.isEmpty()) {
+            window.addTextToWindow(" and ", TextColor.WHITE);
             printInventory();
         }
-        if (!treasureInventoryIsEmpty()) {
-            WINDOW.addTextToWindow("\nTreasure Collected: ", Color.white);
+        if (!treasureInventory.isEmpty()) {
+            window.addTextToWindow("\nTreasure Collected: ", TextColor.WHITE);
             printTreasureInventory();
-            WINDOW.addTextToWindow("\n", Color.white);
+            window.addTextToWindow("\n", TextColor.WHITE);
         }
         else
-            WINDOW.addTextToWindow("\nTreasure Collected: None\n", Color.white);
+            window.addTextToWindow("\nTreasure Collected: None\n", TextColor.WHITE);
     }
 
-    /**
-     * Searches kit Array for the index of the specified value.
-     *
-     * @param item String to look for.
-     * @return The index of the item, or -1 if not found.
-     */
-    private int findItemInKit(String item) {
-        for (int i = 0; i < kit.length; i++) {
-            String tmpItem = kit[i];
-            if (item.equals(tmpItem))
-                return i;
-        }
-        return -1;
+    public void addTreasure(Treasure treasure) {
+        if (treasure != Treasure.DUST && treasureInventory.add(treasure))
+            treasureSlots[firstEmpty(treasureSlots)] = treasure;
     }
 
-    /**
-     * Check if the kit is empty - meaning all elements are null.
-     *
-     * @return true if kit is completely empty.
-     */
-    private boolean kitIsEmpty() {
-        for (String string : kit) {
-            if (string != null)
-                return false;
-        }
-        return true;
+    public boolean hasItemInTreasureInventory(Treasure treasure) {
+        return treasure != null && treasureInventory.contains(treasure);
     }
 
     /**
-     * Finds the first index where there is a null value.
-     *
-     * @return index of empty index, or -1 if not found.
+     * @return The number of treasures the hunter has collected.
      */
-    private int emptyPositionInKit() {
-        for (int i = 0; i < kit.length; i++) {
-            if (kit[i] == null)
-                return i;
-        }
-        return -1;
-    }
-
-    public void addTreasure(String item) {
-        if (!hasItemInTreasureInventory(item)) {
-            int idx = emptyPositionInTreasureInventory();
-            treasureInventory[idx] = item;
-        }
-    }
-
-    public int emptyPositionInTreasureInventory() {
-        for (int i = 0; i < treasureInventory.length; i++) {
-            if (treasureInventory[i] == null)
-                return i;
-        }
-        return -1;
+    public int getTreasureCount() {
+        return treasureInventory.size();
     }
 
-    public boolean hasItemInTreasureInventory(String item) {
-        if (item == null)
-            return false;
-
-        for (String tmpItem : treasureInventory) {
-            if (item.equals(tmpItem))
-                return true;
-        }
-        return false;
+    /**
+     * @return true if the hunter has collected every treasure.
+     */
+    public boolean hasAllTreasures() {
+        return treasureInventory.size() == Treasure.COLLECTIBLE_COUNT;
     }
 
     public void printTreasureInventory() {
-        for (String item : treasureInventory) {
-            if (item != null) {
-                WINDOW.addTextToWindow(item, Color.blue);
-                WINDOW.addTextToWindow(", ", Color.white);
+        for (Treasure treasure : treasureSlots) {
+            if (treasure != null) {
+                window.addTextToWindow(treasure.getName(), TextColor.BLUE);
+                window.addTextToWindow(", ", TextColor.WHITE);
             }
         }
     }
 
-    private boolean treasureInventoryIsEmpty() {
-        for (String string : treasureInventory) {
-            if (string != null)
-                return false;
-        }
-        return true;
+    /**
+     * @return The index of the first empty slot.
+     */
+    private static int firstEmpty(Object[] slots) {
+        int i = 0;
+        while (slots[i] != null)
+            i++;
+        return i;
     }
-}
\ No newline at end of file
+}
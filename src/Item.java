@@ -0,0 +1,71 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The Item enum is the catalog of every item a hunter can carry in their kit, along with its shop price.<p>
+ * Because a kit is an EnumSet of items, checking for an item is a single bit test no matter how many items exist.
+ */
+
+public enum Item {
+    KATANA("katana", "KATANA", 0, TextColor.RED),
+    WATER("water", "Water", 2, TextColor.PINK),
+    ROPE("rope", "Rope", 4, TextColor.PINK),
+    MACHETE("machete", "Machete", 6, TextColor.PINK),
+    BOOTS("boots", "Boots", 10, TextColor.PINK),
+    SHOVEL("shovel", "Shovel", 8, TextColor.PINK),
+    HORSE("horse", "Horse", 12, TextColor.PINK),
+    BOAT("boat", "Boat", 20, TextColor.PINK);
+
+    private static final Map<String, Item> BY_NAME = new HashMap<>();
+
+    static {
+        for (Item item : values())
+            BY_NAME.put(item.name, item);
+    }
+
+    // instance variables
+    private final String name;
+    private final String label;
+    private final int cost;
+    private final TextColor color;
+
+    Item(String name, String displayName, int cost, TextColor color) {
+        this.name = name;
+        this.label = displayName + ": ";
+        this.cost = cost;
+        this.color = color;
+    }
+
+    // accessors
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The item's name as it appears in the shop listing, e.g. "Water: ".
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return The full price of the item, before any markdown.
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    public TextColor getColor() {
+        return color;
+    }
+
+    /**
+     * Looks up an item by the name a player types.
+     *
+     * @param name The lower case name of the item.
+     * @return The item, or null if there is no item with that name.
+     */
+    public static Item fromName(String name) {
+        return BY_NAME.get(name);
+    }
+}
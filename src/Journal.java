@@ -0,0 +1,170 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The Journal is an append-only binary log of game events.<p>
+ * Every record is 16 bytes:
+ * <pre>
+ *   0  int   game number
+ *   4  byte  record type
+ *   5  byte  a
+ *   6  byte  b
+ *   7  byte  c
+ *   8  long  payload
+ * </pre>
+ * Records are written straight into a memory-mapped segment file; when a segment is full the journal
+ * rolls over to a new one. A record whose type is 0 marks the unused end of a segment.<p>
+ * Each Journal opened on a directory is a new run, numbered one after the last run already there, and the first
+ * record of every segment is a RUN record whose payload is the number of the run that wrote it. Game numbers start
+ * again in every run, so a reader picks one run and skips the segments of the others.
+ * Appending allocates nothing, but a Journal is not thread safe: give each writing thread its own directory.
+ */
+
+public class Journal implements Closeable {
+    public static final int RECORD_SIZE = 16;
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    // record types
+    public static final byte NAME = 1;
+    public static final byte PARAM = 2;
+    public static final byte START = 3;
+    public static final byte TOWN = 4;
+    public static final byte BUY = 5;
+    public static final byte SELL = 6;
+    public static final byte BRAWL = 7;
+    public static final byte HUNT = 8;
+    public static final byte DIG = 9;
+    public static final byte BREAK = 10;
+    public static final byte REVISIT = 11;
+    public static final byte RUN = 12;
+
+    // instance variables
+    private final Path directory;
+    private final int segmentSize;
+    private final long run;
+    private int segment;
+    private MappedByteBuffer buffer;
+    private int position;
+
+    /**
+     * Opens a journal with the default segment size.
+     *
+     * @param directory The directory the segment files are written to.
+     */
+    public Journal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens a journal as a new run. New segments are numbered after any that already exist, so nothing is
+     * overwritten.
+     *
+     * @param directory The directory the segment files are written to.
+     * @param segmentSize The size of each segment file in bytes; rounded down to a whole number of records.
+     */
+    public Journal(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize - segmentSize % RECORD_SIZE;
+        if (this.segmentSize < 2 * RECORD_SIZE)
+            throw new IllegalArgumentException("A segment must hold at least one record after its header");
+        Files.createDirectories(directory);
+        segment = 0;
+        while (Files.exists(segmentPath(directory, segment)))
+            segment++;
+        run = segment == 0 ? 1 : runOf(segmentPath(directory, segment - 1)) + 1;
+        openSegment();
+    }
+
+    /**
+     * @return The number of the run this journal is writing.
+     */
+    public long getRun() {
+        return run;
+    }
+
+    /**
+     * @param directory A journal directory.
+     * @param index The number of a segment.
+     * @return The path of that segment's file.
+     */
+    public static Path segmentPath(Path directory, int index) {
+        return directory.resolve(String.format("%06d.journal", index));
+    }
+
+    /**
+     * @param segment A segment file.
+     * @return The run that wrote the segment, or 0 if it was written before segments had run headers.
+     * @throws IOException If the segment cannot be read.
+     */
+    public static long runOf(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            if (header.hasRemaining() || header.get(4) != RUN)
+                return 0;
+            return header.getLong(8);
+        }
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param game The game the record belongs to.
+     * @param type The record type.
+     * @param a The first small field.
+     * @param b The second small field.
+     * @param c The third small field.
+     * @param payload The payload.
+     */
+    public void append(int game, byte type, int a, int b, int c, long payload) {
+        if (position == segmentSize) {
+            segment++;
+            try {
+                openSegment();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        buffer.putInt(position, game);
+        buffer.put(position + 4, type);
+        buffer.put(position + 5, (byte) a);
+        buffer.put(position + 6, (byte) b);
+        buffer.put(position + 7, (byte) c);
+        buffer.putLong(position + 8, payload);
+        position += RECORD_SIZE;
+    }
+
+    /**
+     * @param game The game number the records are written under.
+     * @return An observer that journals every change made in that game.
+     */
+    public GameObserver recorder(int game) {
+        return new JournalRecorder(this, game);
+    }
+
+    private void openSegment() throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(directory, segment),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, 0);
+        buffer.put(4, RUN);
+        buffer.putLong(8, run);
+        position = RECORD_SIZE;
+    }
+
+    @Override
+    public void close() {
+        buffer.force();
+    }
+}
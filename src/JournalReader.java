@@ -0,0 +1,169 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The JournalReader replays a game from a Journal back into the Hunter and Town it ended with.<p>
+ * Replaying applies the recorded outcomes directly, so no random numbers are rolled and nothing is displayed.
+ * Only the segments of one run are read, since every run of a reused journal directory numbers its games from the
+ * start again.
+ */
+
+public class JournalReader {
+    private static final Item[] ITEMS = Item.values();
+    private static final Treasure[] TREASURES = Treasure.values();
+
+    /**
+     * The state of a game rebuilt from the journal.
+     */
+    public static class Replay {
+        private Hunter hunter;
+        private Town town;
+        private Difficulty difficulty;
+
+        public Hunter getHunter() {
+            return hunter;
+        }
+
+        public Town getTown() {
+            return town;
+        }
+
+        public Difficulty getDifficulty() {
+            return difficulty;
+        }
+    }
+
+    /**
+     * @param directory The journal directory.
+     * @return The number of the last run written to it, or -1 if it has no segments.
+     * @throws IOException If a segment cannot be read.
+     */
+    public static long latestRun(Path directory) throws IOException {
+        int segments = 0;
+        while (Files.exists(Journal.segmentPath(directory, segments)))
+            segments++;
+        return segments == 0 ? -1 : Journal.runOf(Journal.segmentPath(directory, segments - 1));
+    }
+
+    /**
+     * Replays one game of the latest run.
+     *
+     * @param directory The journal directory.
+     * @param game The number of the game to replay.
+     * @return The replayed state, or null if the journal has no records for that game.
+     * @throws IOException If a segment cannot be read.
+     */
+    public static Replay replay(Path directory, int game) throws IOException {
+        return replay(directory, latestRun(directory), game);
+    }
+
+    /**
+     * Replays one game.
+     *
+     * @param directory The journal directory.
+     * @param run The run the game was played in.
+     * @param game The number of the game to replay.
+     * @return The replayed state, or null if the run has no records for that game.
+     * @throws IOException If a segment cannot be read.
+     */
+    public static Replay replay(Path directory, long run, int game) throws IOException {
+        Replay replay = new Replay();
+        StringBuilder name = new StringBuilder();
+        double[] params = new double[3];
+        boolean found = false;
+
+        for (int index = 0; Files.exists(Journal.segmentPath(directory, index)); index++) {
+            if (Journal.runOf(Journal.segmentPath(directory, index)) != run)
+                continue;
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(Journal.segmentPath(directory, index), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            for (int pos = 0; pos + Journal.RECORD_SIZE <= buffer.limit(); pos += Journal.RECORD_SIZE) {
+                byte type = buffer.get(pos + 4);
+                if (type == 0)
+                    break;
+                if (type == Journal.RUN || buffer.getInt(pos) != game)
+                    continue;
+
+                found = true;
+                int a = buffer.get(pos + 5);
+                int b = buffer.get(pos + 6);
+                int c = buffer.get(pos + 7);
+                long payload = buffer.getLong(pos + 8);
+                apply(replay, name, params, type, a, b, c, payload);
+            }
+        }
+        return found ? replay : null;
+    }
+
+    private static void apply(Replay replay, StringBuilder name, double[] params, byte type, int a, int b, int c, long payload) {
+        Hunter hunter = replay.hunter;
+        Town town = replay.town;
+        switch (type) {
+            case Journal.NAME -> {
+                for (int j = 0; j < a; j++)
+                    name.append((char) (payload >>> (16 * j)));
+            }
+            case Journal.PARAM -> params[a] = Double.longBitsToDouble(payload);
+            case Journal.START -> {
+                replay.difficulty = new Difficulty("Replay", (int) payload, params[0], params[1], params[2], a == 1);
+                replay.hunter = new Hunter(name.toString(), (int) payload, NullOutput.INSTANCE);
+            }
+            case Journal.TOWN -> enterTown(replay, a, b, c == 1);
+            case Journal.REVISIT -> {
+                enterTown(replay, a, b, (c & 1) != 0);
+                replay.town.restoreProgress((c & 2) != 0, (c & 4) != 0);
+            }
+            case Journal.BUY -> hunter.buyItem(ITEMS[a], (int) payload);
+            case Journal.SELL -> hunter.sellItem(ITEMS[a], (int) payload);
+            case Journal.BRAWL -> hunter.changeGold(a == 1 ? (int) payload : -(int) payload);
+            case Journal.HUNT -> {
+                if (b == 1)
+                    hunter.addTreasure(TREASURES[a]);
+                town.restoreProgress(true, town.isDug());
+            }
+            case Journal.DIG -> {
+                hunter.changeGold((int) payload);
+                town.restoreProgress(town.isAlreadySearched(), true);
+            }
+            case Journal.BREAK -> hunter.removeItemFromKit(ITEMS[a]);
+            default -> throw new IllegalStateException("Unknown journal record type " + type);
+        }
+    }
+
+    private static void enterTown(Replay replay, int treasure, int kind, boolean toughTown) {
+        Difficulty difficulty = replay.difficulty;
+        Shop shop = new Shop(difficulty.getPrices());
+        replay.town = new Town(shop, difficulty, TREASURES[treasure], Terrain.of(kind), toughTown);
+        replay.town.hunterArrives(new Player(replay.hunter, NullOutput.INSTANCE, null, null, new EventBus()));
+    }
+
+    /**
+     * Replays a game and prints the state it ended in.<p>
+     * Arguments: directory game [run], where the run defaults to the latest one
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Path.of(args[0]);
+        long run = args.length > 2 ? Long.parseLong(args[2]) : latestRun(directory);
+        Replay replay = replay(directory, run, Integer.parseInt(args[1]));
+        if (replay == null) {
+            System.out.println("No such game in the journal.");
+            return;
+        }
+        Hunter hunter = replay.getHunter();
+        Town town = replay.getTown();
+        System.out.println(hunter.getHunterName() + " has " + hunter.getGold() + " gold and "
+                + hunter.getTreasureCount() + " treasures");
+        System.out.println("Last town: " + town.getTerrain().getTerrainName() + ", treasure " + town.getTreasure()
+                + (town.isToughTown() ? ", tough" : "") + (town.isAlreadySearched() ? ", searched" : "")
+                + (town.isDug() ? ", dug" : ""));
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * The JournalRecorder writes every change made in one game to a Journal.
+ */
+
+public class JournalRecorder implements GameObserver {
+    private static final Item[] ITEMS = Item.values();
+
+    // instance variables
+    private final Journal journal;
+    private final int game;
+
+    /**
+     * @param journal The journal to write to.
+     * @param game The game number the records are written under.
+     */
+    public JournalRecorder(Journal journal, int game) {
+        this.journal = journal;
+        this.game = game;
+    }
+
+    @Override
+    public void gameStarted(Hunter hunter, Difficulty difficulty) {
+        // the name is stored four UTF-16 characters per record
+        String name = hunter.getHunterName();
+        for (int i = 0; i < name.length(); i += 4) {
+            int count = Math.min(4, name.length() - i);
+            long chars = 0;
+            for (int j = 0; j < count; j++)
+                chars |= (long) name.charAt(i + j) << (16 * j);
+            journal.append(game, Journal.NAME, count, 0, 0, chars);
+        }
+        journal.append(game, Journal.PARAM, 0, 0, 0, Double.doubleToLongBits(difficulty.getMarkdown()));
+        journal.append(game, Journal.PARAM, 1, 0, 0, Double.doubleToLongBits(difficulty.getToughness()));
+        journal.append(game, Journal.PARAM, 2, 0, 0, Double.doubleToLongBits(difficulty.getBreakChance()));
+        journal.append(game, Journal.START, difficulty.isSamurai() ? 1 : 0, 0, 0, hunter.getGold());
+        for (Item item : ITEMS) {
+            if (hunter.hasItemInKit(item))
+                journal.append(game, Journal.BUY, item.ordinal(), 0, 0, 0);
+        }
+    }
+
+    @Override
+    public void townCreated(Treasure treasure, Terrain terrain, boolean toughTown) {
+        journal.append(game, Journal.TOWN, treasure.ordinal(), terrain.getKind(), toughTown ? 1 : 0, 0);
+    }
+
+    @Override
+    public void townRevisited(Treasure treasure, Terrain terrain, boolean toughTown, boolean searched, boolean dug) {
+        int flags = (toughTown ? 1 : 0) | (searched ? 2 : 0) | (dug ? 4 : 0);
+        journal.append(game, Journal.REVISIT, treasure.ordinal(), terrain.getKind(), flags, 0);
+    }
+
+    @Override
+    public void itemBought(Item item, int cost) {
+        journal.append(game, Journal.BUY, item.ordinal(), 0, 0, cost);
+    }
+
+    @Override
+    public void itemSold(Item item, int price) {
+        journal.append(game, Journal.SELL, item.ordinal(), 0, 0, price);
+    }
+
+    @Override
+    public void brawl(boolean won, int gold) {
+        journal.append(game, Journal.BRAWL, won ? 1 : 0, 0, 0, gold);
+    }
+
+    @Override
+    public void treasureHunted(Treasure treasure, boolean kept) {
+        journal.append(game, Journal.HUNT, treasure.ordinal(), kept ? 1 : 0, 0, 0);
+    }
+
+    @Override
+    public void dug(int gold) {
+        journal.append(game, Journal.DIG, 0, 0, 0, gold);
+    }
+
+    @Override
+    public void itemBroke(Item item) {
+        journal.append(game, Journal.BREAK, item.ordinal(), 0, 0, 0);
+    }
+}
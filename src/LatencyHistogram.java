@@ -0,0 +1,63 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The LatencyHistogram counts durations in power-of-two buckets of nanoseconds.<p>
+ * Each bucket is a LongAdder, so many threads can record at once without contending on a single counter.
+ * Percentiles are reported as the upper edge of the bucket they fall in, so they are accurate to a factor of two.
+ */
+
+public class LatencyHistogram {
+    // instance variables
+    private final LongAdder[] buckets;
+    private final LongAdder count;
+    private final LongAdder totalNanos;
+
+    public LatencyHistogram() {
+        buckets = new LongAdder[65];
+        for (int i = 0; i < buckets.length; i++)
+            buckets[i] = new LongAdder();
+        count = new LongAdder();
+        totalNanos = new LongAdder();
+    }
+
+    /**
+     * @param nanos A duration in nanoseconds.
+     */
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+        buckets[64 - Long.numberOfLeadingZeros(nanos)].increment();
+        count.increment();
+        totalNanos.add(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMeanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) totalNanos.sum() / n;
+    }
+
+    /**
+     * @param p A fraction between 0 and 1.
+     * @return The duration below which that fraction of the recorded durations fall, in nanoseconds.
+     */
+    public long percentileNanos(double p) {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        long target = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target)
+                return i == 0 ? 0 : (i == 64 ? Long.MAX_VALUE : (1L << i) - 1);
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,309 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The Leaderboard keeps the best finished games of each difficulty in a memory-mapped file.<p>
+ * The file holds one board per difficulty (easy, normal, hard, samurai and one for custom difficulties), and each
+ * board is a min-heap of at most K games ordered by score, so the worst game on the board is always at the root.
+ * Recording a game is at most one comparison and a sift of log K records, and reading a board copies K records;
+ * nothing ever scans the history of games played.<p>
+ * Games are ranked by, in order: winning, treasures found, fewest turns, most gold.<p>
+ * Each board has its own lock, so sessions on different difficulties never wait for each other. Each board also
+ * publishes the score a game must beat once the board is full, updated only after a record has finished sifting,
+ * so a game that does not make the board is turned away without taking any lock. The locks only guard this
+ * process: open a leaderboard file from one process at a time.<p>
+ * File layout, little-endian:
+ * <pre>
+ *   header   "THLB", int version, int K, padded to 64 bytes
+ *   boards   per board: int count, padded to 64 bytes, then K records of 64 bytes:
+ *              0  long  score
+ *              8  int   turns
+ *              12 int   gold
+ *              16 byte  treasures
+ *              17 byte  1 if the game was won
+ *              18 byte  name length
+ *              24       name as UTF-8, up to 40 bytes
+ * </pre>
+ */
+
+public class Leaderboard implements Closeable {
+    public static final int VERSION = 1;
+    public static final int DEFAULT_SIZE = 100;
+
+    private static final int MAGIC = 'T' | 'H' << 8 | 'L' << 16 | 'B' << 24;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 64;
+    private static final int NAME_OFFSET = 24;
+    private static final int MAX_NAME_BYTES = RECORD_SIZE - NAME_OFFSET;
+    private static final Difficulty[] BOARDS = {Difficulty.EASY, Difficulty.NORMAL, Difficulty.HARD, Difficulty.SAMURAI};
+    private static final String[] BOARD_NAMES = {"Easy", "Normal", "Hard", "Samurai", "Custom"};
+
+    /**
+     * One game on a leaderboard.
+     */
+    public record Entry(String name, boolean win, int treasures, int turns, int gold) {
+        @Override
+        public String toString() {
+            return String.format("%-16s %-4s %d treasures %5d turns %5d gold", name, win ? "WIN" : "LOSS", treasures, turns, gold);
+        }
+    }
+
+    private record Ranked(long score, Entry entry) { }
+
+    // instance variables
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final ReentrantLock[] locks;
+    private final AtomicLongArray floors;
+
+    /**
+     * Opens a leaderboard file with room for DEFAULT_SIZE games per difficulty, creating it if needed.
+     *
+     * @param file The leaderboard file.
+     */
+    public Leaderboard(Path file) throws IOException {
+        this(file, DEFAULT_SIZE);
+    }
+
+    /**
+     * Opens a leaderboard file, creating it if needed.
+     *
+     * @param file The leaderboard file.
+     * @param size The number of games kept per difficulty. An existing file must have been made with the same size.
+     * @throws IOException If the file cannot be mapped, is not a leaderboard file or was made with a different size.
+     */
+    public Leaderboard(Path file, int size) throws IOException {
+        if (size <= 0)
+            throw new IllegalArgumentException("A leaderboard must keep at least one game: " + size);
+        this.size = size;
+        long length = HEADER_SIZE + (long) BOARD_NAMES.length * boardSize();
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // check an existing file before mapping it, since mapping past its end would grow it
+            if (channel.size() > 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                while (header.hasRemaining()) {
+                    if (channel.read(header, header.position()) < 0)
+                        break;
+                }
+                if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+                    throw new IOException(file + " is not a leaderboard file");
+                if (header.getInt(8) != size)
+                    throw new IOException(file + " keeps " + header.getInt(8) + " games per difficulty, not " + size);
+                if (channel.size() != length)
+                    throw new IOException(file + " is " + channel.size() + " bytes long, not " + length);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) == 0) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, size);
+        }
+
+        locks = new ReentrantLock[BOARD_NAMES.length];
+        floors = new AtomicLongArray(BOARD_NAMES.length);
+        for (int board = 0; board < locks.length; board++) {
+            int count = buffer.getInt(boardBase(board));
+            if (count < 0 || count > size)
+                throw new IOException(file + " has " + count + " games on the " + BOARD_NAMES[board] + " board");
+            locks[board] = new ReentrantLock();
+            publishFloor(board);
+        }
+    }
+
+    /**
+     * Records a finished game.
+     *
+     * @param name The hunter's name.
+     * @param difficulty The difficulty the game was played at.
+     * @param result How the game finished.
+     * @return true if the game made the leaderboard.
+     */
+    public boolean record(String name, Difficulty difficulty, GameResult result) {
+        int board = boardOf(difficulty);
+        long score = score(result);
+        int base = boardBase(board);
+        // a full board whose worst game beats this one can turn it away without the lock; the floor is only
+        // published once a record has settled, so it is never higher than the board's real worst game
+        if (score <= floors.get(board))
+            return false;
+
+        ReentrantLock lock = locks[board];
+        lock.lock();
+        try {
+            int count = buffer.getInt(base);
+            int slot;
+            if (count < size) {
+                slot = count;
+                buffer.putInt(base, count + 1);
+                write(recordAt(board, slot), score, name, result);
+                siftUp(board, slot);
+            }
+            else if (buffer.getLong(recordAt(board, 0)) < score) {
+                write(recordAt(board, 0), score, name, result);
+                siftDown(board, 0, size);
+            }
+            else
+                return false;
+            publishFloor(board);
+            return true;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param difficulty A difficulty.
+     * @return The games on that difficulty's board, best first.
+     */
+    public List<Entry> top(Difficulty difficulty) {
+        int board = boardOf(difficulty);
+        List<Ranked> ranked = new ArrayList<>();
+        ReentrantLock lock = locks[board];
+        lock.lock();
+        try {
+            int count = buffer.getInt(boardBase(board));
+            for (int slot = 0; slot < count; slot++) {
+                int at = recordAt(board, slot);
+                ranked.add(new Ranked(buffer.getLong(at), read(at)));
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+        ranked.sort(Comparator.comparingLong(Ranked::score).reversed());
+        List<Entry> entries = new ArrayList<>(ranked.size());
+        for (Ranked r : ranked)
+            entries.add(r.entry());
+        return entries;
+    }
+
+    @Override
+    public void close() {
+        buffer.force();
+    }
+
+    /**
+     * Packs a game's ranking into a long, so that better games have larger scores.
+     */
+    private static long score(GameResult result) {
+        long turns = 0xFFFFFF - Math.min(result.getTurns(), 0xFFFFFF);
+        long gold = (result.getGold() + 0x80000000L) & 0xFFFFFFFFL;
+        return (result.isWin() ? 1L : 0L) << 62 | (long) result.getTreasures() << 56 | turns << 32 | gold;
+    }
+
+    private static int boardOf(Difficulty difficulty) {
+        for (int i = 0; i < BOARDS.length; i++) {
+            if (BOARDS[i] == difficulty)
+                return i;
+        }
+        return BOARDS.length;
+    }
+
+    /**
+     * Publishes the score a game must beat to make a board: the worst game's score when the board is full.
+     * Called with the board's lock held, or before the leaderboard is shared.
+     */
+    private void publishFloor(int board) {
+        boolean full = buffer.getInt(boardBase(board)) == size;
+        floors.set(board, full ? buffer.getLong(recordAt(board, 0)) : Long.MIN_VALUE);
+    }
+
+    private int boardSize() {
+        return HEADER_SIZE + size * RECORD_SIZE;
+    }
+
+    private int boardBase(int board) {
+        return HEADER_SIZE + board * boardSize();
+    }
+
+    private int recordAt(int board, int slot) {
+        return boardBase(board) + HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private void write(int at, long score, String name, GameResult result) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_NAME_BYTES);
+        while (length < bytes.length && (bytes[length] & 0xC0) == 0x80)
+            length--; // don't cut a character in half
+        buffer.putLong(at, score);
+        buffer.putInt(at + 8, result.getTurns());
+        buffer.putInt(at + 12, result.getGold());
+        buffer.put(at + 16, (byte) result.getTreasures());
+        buffer.put(at + 17, (byte) (result.isWin() ? 1 : 0));
+        buffer.put(at + 18, (byte) length);
+        buffer.put(at + NAME_OFFSET, bytes, 0, length);
+    }
+
+    private Entry read(int at) {
+        byte[] name = new byte[buffer.get(at + 18)];
+        buffer.get(at + NAME_OFFSET, name);
+        return new Entry(new String(name, StandardCharsets.UTF_8), buffer.get(at + 17) == 1, buffer.get(at + 16),
+                buffer.getInt(at + 8), buffer.getInt(at + 12));
+    }
+
+    private void siftUp(int board, int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) / 2;
+            if (buffer.getLong(recordAt(board, parent)) <= buffer.getLong(recordAt(board, slot)))
+                return;
+            swap(board, slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int board, int slot, int count) {
+        while (true) {
+            int smallest = slot;
+            for (int child = 2 * slot + 1; child <= 2 * slot + 2 && child < count; child++) {
+                if (buffer.getLong(recordAt(board, child)) < buffer.getLong(recordAt(board, smallest)))
+                    smallest = child;
+            }
+            if (smallest == slot)
+                return;
+            swap(board, slot, smallest);
+            slot = smallest;
+        }
+    }
+
+    private void swap(int board, int a, int b) {
+        int at = recordAt(board, a);
+        int bt = recordAt(board, b);
+        for (int i = 0; i < RECORD_SIZE; i += 8) {
+            long t = buffer.getLong(at + i);
+            buffer.putLong(at + i, buffer.getLong(bt + i));
+            buffer.putLong(bt + i, t);
+        }
+    }
+
+    /**
+     * Prints every board of a leaderboard file.<p>
+     * Arguments: file [games per difficulty]
+     */
+    public static void main(String[] args) throws IOException {
+        try (Leaderboard leaderboard = new Leaderboard(Path.of(args[0]),
+                args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SIZE)) {
+            for (int board = 0; board < BOARD_NAMES.length; board++) {
+                List<Entry> entries = leaderboard.top(board < BOARDS.length ? BOARDS[board] : null);
+                System.out.println(BOARD_NAMES[board] + " (" + entries.size() + ")");
+                for (int rank = 0; rank < entries.size(); rank++)
+                    System.out.printf("%4d. %s%n", rank + 1, entries.get(rank));
+            }
+        }
+    }
+}
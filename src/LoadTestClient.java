@@ -0,0 +1,156 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The LoadTestClient opens many concurrent sessions against a GameServer and reports turn latency.<p>
+ * A turn is one round trip: from sending an answer to receiving the server's next prompt.
+ * Each session connects first, then all of them start playing at the same moment.
+ */
+
+public class LoadTestClient {
+    // static variables
+    private static final String[] MOVES = {"e", "h", "d", "b", "l"};
+
+    // instance variables
+    private final String host;
+    private final int port;
+    private final int turns;
+
+    /**
+     * @param host The server's host name.
+     * @param port The server's port.
+     * @param turns The number of menu choices each session makes before quitting.
+     */
+    public LoadTestClient(String host, int port, int turns) {
+        this.host = host;
+        this.port = port;
+        this.turns = turns;
+    }
+
+    /**
+     * Plays the given number of sessions at once and prints the latency percentiles.
+     *
+     * @param sessions The number of concurrent sessions.
+     */
+    public void run(int sessions) throws InterruptedException {
+        ConcurrentLinkedQueue<long[]> samples = new ConcurrentLinkedQueue<>();
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch connected = new CountDownLatch(sessions);
+        CountDownLatch start = new CountDownLatch(1);
+
+        long begin;
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < sessions; i++) {
+                clients.submit(() -> {
+                    try (Socket socket = new Socket(host, port)) {
+                        socket.setTcpNoDelay(true);
+                        connected.countDown();
+                        start.await();
+                        samples.add(playSession(socket));
+                    }
+                    catch (IOException e) {
+                        connected.countDown();
+                        failures.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            connected.await();
+            begin = System.nanoTime();
+            start.countDown();
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        int count = 0;
+        for (long[] s : samples)
+            count += s.length;
+        long[] all = new long[count];
+        int pos = 0;
+        for (long[] s : samples) {
+            System.arraycopy(s, 0, all, pos, s.length);
+            pos += s.length;
+        }
+        Arrays.sort(all);
+
+        System.out.printf("%d sessions (%d failed): %d turns in %.2f s (%.0f turns/sec), p50 %.3f ms, p99 %.3f ms%n",
+                sessions, failures.get(), count, elapsed / 1e9, count * 1e9 / elapsed,
+                percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6);
+    }
+
+    /**
+     * Answers the server's prompts until the game ends, timing each round trip.
+     *
+     * @param socket An open connection to the server.
+     * @return The round trip times, in nanoseconds.
+     */
+    private long[] playSession(Socket socket) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        long[] latencies = new long[turns * 3 + 2];
+        int count = 0;
+        int moves = 0;
+        long sent = 0;
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.startsWith("!"))
+                break;
+            if (!line.startsWith("?"))
+                continue;
+
+            if (sent != 0 && count < latencies.length)
+                latencies[count++] = System.nanoTime() - sent;
+
+            String answer = switch (line.substring(1)) {
+                case "NAME" -> "load";
+                case "DIFFICULTY" -> "e";
+                case "MENU" -> moves < turns ? MOVES[moves++ % MOVES.length] : "x";
+                case "BUY_ITEM" -> "water";
+                default -> "n";
+            };
+            out.write(answer);
+            out.write('\n');
+            out.flush();
+            sent = System.nanoTime();
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0)
+            return 0;
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+
+    /**
+     * Runs the load test against a running GameServer.<p>
+     * Arguments: [host] [port] [turns] [sessions...] (sessions default to 1000 and 10000)
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 7777;
+        int turns = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        LoadTestClient client = new LoadTestClient(host, port, turns);
+        if (args.length > 3) {
+            for (int i = 3; i < args.length; i++)
+                client.run(Integer.parseInt(args[i]));
+        }
+        else {
+            client.run(1_000);
+            client.run(10_000);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The Market sets the prices every shop of one difficulty charges, moving them with how much of each item is
+ * bought and sold across all game sessions.<p>
+ * Trades are counted in striped counters, so sessions recording them at the same time do not fight over one
+ * memory location. A background task reprices every REPRICE_MILLIS: each item's price rises when more are bought
+ * than sold since the last repricing and falls when more are sold, always drifts back toward the item's own cost,
+ * and stays between half and double that cost. When any price moved, the new prices are published as a whole new
+ * PriceTable, so a price lookup is one volatile read followed by an array access, and never waits for a repricing.<p>
+ * The shared markets are kept by the difficulty's settings rather than by the Difficulty object, so a custom
+ * difficulty that is made again, as every restored save of one is, trades at the market it had before instead of
+ * starting another market with another repricing task that would never stop.
+ */
+
+public class Market {
+    // static variables
+    public static final long REPRICE_MILLIS = 1000;
+
+    private static final Item[] ITEMS = Item.values();
+    private static final double ELASTICITY = 0.1;
+    private static final double DEPTH = 100;
+    private static final double RECOVERY = 0.05;
+    private static final double MIN_FACTOR = 0.5;
+    private static final double MAX_FACTOR = 2;
+
+    private static final Map<Settings, Market> MARKETS = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService REPRICER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "market repricer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Everything that tells one difficulty from another.
+     */
+    private record Settings(String name, int startingGold, double markdown, double toughness, double breakChance,
+                            boolean samurai) {
+        Settings(Difficulty difficulty) {
+            this(difficulty.getName(), difficulty.getStartingGold(), difficulty.getMarkdown(), difficulty.getToughness(),
+                    difficulty.getBreakChance(), difficulty.isSamurai());
+        }
+    }
+
+    // instance variables
+    private final double markdown;
+    private final int[] basePrices;
+    private final LongAdder[] bought;
+    private final LongAdder[] sold;
+
+    // only touched by reprice
+    private final long[] boughtBefore;
+    private final long[] soldBefore;
+    private final double[] factors;
+
+    private volatile PriceTable prices;
+
+    /**
+     * Creates a market that only reprices when reprice is called.
+     *
+     * @param difficulty The difficulty whose prices the market starts from.
+     */
+    public Market(Difficulty difficulty) {
+        markdown = difficulty.getMarkdown();
+        basePrices = new int[ITEMS.length];
+        bought = new LongAdder[ITEMS.length];
+        sold = new LongAdder[ITEMS.length];
+        boughtBefore = new long[ITEMS.length];
+        soldBefore = new long[ITEMS.length];
+        factors = new double[ITEMS.length];
+        for (Item item : ITEMS) {
+            int i = item.ordinal();
+            basePrices[i] = difficulty.getPrices().getBuyPrice(item);
+            bought[i] = new LongAdder();
+            sold[i] = new LongAdder();
+            factors[i] = 1;
+        }
+        prices = difficulty.getPrices();
+    }
+
+    /**
+     * @param difficulty A difficulty.
+     * @return The market shared by every session of a difficulty with the same settings, repriced in the background.
+     */
+    public static Market of(Difficulty difficulty) {
+        return MARKETS.computeIfAbsent(new Settings(difficulty), settings -> {
+            Market market = new Market(difficulty);
+            REPRICER.scheduleAtFixedRate(market::reprice, REPRICE_MILLIS, REPRICE_MILLIS, TimeUnit.MILLISECONDS);
+            return market;
+        });
+    }
+
+    /**
+     * @return The prices right now.
+     */
+    public PriceTable getPrices() {
+        return prices;
+    }
+
+    /**
+     * @return The number of items bought and sold through the market so far.
+     */
+    public long getTradeCount() {
+        long trades = 0;
+        for (int i = 0; i < ITEMS.length; i++)
+            trades += bought[i].sum() + sold[i].sum();
+        return trades;
+    }
+
+    /**
+     * Counts one item bought from a shop.
+     *
+     * @param item The item bought.
+     */
+    public void recordBuy(Item item) {
+        bought[item.ordinal()].increment();
+    }
+
+    /**
+     * Counts one item sold to a shop.
+     *
+     * @param item The item sold.
+     */
+    public void recordSell(Item item) {
+        sold[item.ordinal()].increment();
+    }
+
+    /**
+     * Moves every price with the trades counted since the last repricing and publishes the new prices.
+     */
+    public synchronized void reprice() {
+        int[] buyPrices = new int[ITEMS.length];
+        for (int i = 0; i < ITEMS.length; i++) {
+            if (basePrices[i] <= 0) {
+                buyPrices[i] = basePrices[i]; // not for sale, or free
+                continue;
+            }
+            long boughtTotal = bought[i].sum();
+            long soldTotal = sold[i].sum();
+            long demand = boughtTotal - boughtBefore[i];
+            long supply = soldTotal - soldBefore[i];
+            boughtBefore[i] = boughtTotal;
+            soldBefore[i] = soldTotal;
+
+            double factor = 1 + (factors[i] - 1) * (1 - RECOVERY);
+            factor *= 1 + ELASTICITY * (demand - supply) / (demand + supply + DEPTH);
+            factors[i] = Math.max(MIN_FACTOR, Math.min(MAX_FACTOR, factor));
+            buyPrices[i] = Math.max(1, (int) Math.round(basePrices[i] * factors[i]));
+        }
+        PriceTable current = prices;
+        for (Item item : ITEMS) {
+            if (current.getBuyPrice(item) != buyPrices[item.ordinal()]) {
+                prices = new PriceTable(buyPrices, markdown);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Plays simulated games on normal on every core, all trading at the shared market, and prints the
+     * market's buy prices after every repricing.<p>
+     * Arguments: [seconds]
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        Market market = Market.of(Difficulty.NORMAL);
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] players = new Thread[Runtime.getRuntime().availableProcessors()];
+        for (int t = 0; t < players.length; t++) {
+            SplittableRandom seeds = new SplittableRandom(t);
+            players[t] = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    TreasureHunter game = new TreasureHunter(NullOutput.INSTANCE, new GreedyPolicy("n", 500), seeds.split());
+                    game.setDifficulty(Difficulty.NORMAL);
+                    game.setGlobalMarket(true);
+                    game.play();
+                }
+            });
+            players[t].start();
+        }
+
+        long trades = 0;
+        for (int s = 0; s < seconds; s++) {
+            Thread.sleep(REPRICE_MILLIS);
+            long total = market.getTradeCount();
+            StringBuilder line = new StringBuilder(String.format("%,10d trades/sec ", total - trades));
+            for (Item item : ITEMS) {
+                int price = market.getPrices().getBuyPrice(item);
+                if (price >= 0)
+                    line.append(String.format(" %s %d", item.getName(), price));
+            }
+            System.out.println(line);
+            trades = total;
+        }
+        for (Thread player : players)
+            player.join();
+    }
+}
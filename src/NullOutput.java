@@ -0,0 +1,28 @@
+/**
+ * The NullOutput throws away everything written to it.<p>
+ * It is used for headless games where nobody is watching, so rendering costs nothing.
+ */
+
+public final class NullOutput implements OutputSink {
+    public static final NullOutput INSTANCE = new NullOutput();
+
+    private NullOutput() {
+    }
+
+    @Override
+    public void addTextToWindow(String text, TextColor color) {
+    }
+
+    @Override
+    public void clear() {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public boolean isRendering() {
+        return false;
+    }
+}
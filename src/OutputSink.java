@@ -0,0 +1,32 @@
+/**
+ * An OutputSink is where the game's styled text goes.<p>
+ * Text added during a turn is only collected; it is shown all at once when the turn is flushed,
+ * which happens just before the player is asked for input.
+ */
+
+public interface OutputSink {
+    /**
+     * Adds a span of colored text to the end of the current turn.
+     *
+     * @param text The text to add.
+     * @param color The color to show it in.
+     */
+    void addTextToWindow(String text, TextColor color);
+
+    /**
+     * Empties the display, including anything added earlier in the current turn.
+     */
+    void clear();
+
+    /**
+     * Shows everything collected since the last flush.
+     */
+    void flush();
+
+    /**
+     * @return Whether anybody sees what is written, so the game's events are worth turning into text.
+     */
+    default boolean isRendering() {
+        return true;
+    }
+}
@@ -1,17 +1,58 @@
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import javax.swing.JFrame;
 import javax.swing.JTextPane;
-import javax.swing.text.Style;
+import javax.swing.SwingUtilities;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.SimpleAttributeSet;
 import javax.swing.text.StyleConstants;
 import javax.swing.text.StyledDocument;
 
-public class OutputWindow {
+/**
+ * The OutputWindow shows the game in a Swing window.<p>
+ * Spans of text are collected on the game thread and handed to the event dispatch thread
+ * in one batch per turn, so the document is only ever touched from the EDT.<p>
+ * The document keeps a bounded scrollback: once it holds more than its limit, the oldest whole lines
+ * are dropped, a chunk of TRIM_CHARS at a time, so a window left running for days stays the same size
+ * and trimming does not happen on every turn.
+ */
 
+public class OutputWindow implements OutputSink {
+    // static variables
+    public static final int DEFAULT_SCROLLBACK = 64 * 1024;
+    private static final int TRIM_CHARS = 16 * 1024;
+
+    // instance variables
+    private final int scrollback;
     private StyledDocument doc;
-    private Style style;
     private JTextPane textPane;
 
+    // only touched on the EDT
+    private final Map<TextColor, AttributeSet> styles = new EnumMap<>(TextColor.class);
+
+    // only touched on the game thread
+    private List<Span> pending = new ArrayList<>();
+    private boolean clearPending;
+
+    /**
+     * Opens a window that keeps DEFAULT_SCROLLBACK characters of text.
+     */
     public OutputWindow() {
+        this(DEFAULT_SCROLLBACK);
+    }
+
+    /**
+     * Opens a window.
+     *
+     * @param scrollback The number of characters of text kept before the oldest lines are dropped.
+     */
+    public OutputWindow(int scrollback) {
+        this.scrollback = scrollback;
         JFrame frame = new JFrame("Test");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE); // causes program to end when window is X'd out
         frame.setSize(960, 540); // window size
@@ -20,20 +61,72 @@ public class OutputWindow {
         textPane.setBackground(Color.black);
         textPane.setEditable(false); // prevents user from typing into window
         doc = textPane.getStyledDocument(); // call getter method for panel's style doc
-        style = doc.addStyle("my style", null); // add a custom style to the doc
-        StyleConstants.setFontSize(style, 16); // apply font size to custom style
         frame.add(textPane); // add the panel to the frame
         frame.setVisible(true); // display the frame on screen
     }
 
-    public void addTextToWindow(String text, Color color) {
-        StyleConstants.setForeground(style, color); // apply color to custom style
-        try {
-            doc.insertString(doc.getLength(), text, style); } // insert text at end the panel
-        catch (Exception e) { }
+    @Override
+    public void addTextToWindow(String text, TextColor color) {
+        pending.add(new Span(text, color));
     }
 
+    @Override
     public void clear() {
-        textPane.setText("");  // set panel's text to empty string to "reset it"
+        pending.clear();
+        clearPending = true;
+    }
+
+    @Override
+    public void flush() {
+        if (pending.isEmpty() && !clearPending)
+            return;
+
+        List<Span> batch = pending;
+        boolean clearFirst = clearPending;
+        pending = new ArrayList<>();
+        clearPending = false;
+        SwingUtilities.invokeLater(() -> commit(batch, clearFirst));
     }
-}
\ No newline at end of file
+
+    /**
+     * Applies one turn's worth of text to the document, then trims it back to the scrollback. Runs on the EDT.
+     *
+     * @param batch The spans to append.
+     * @param clearFirst Whether the document is emptied before appending.
+     */
+    private void commit(List<Span> batch, boolean clearFirst) {
+        try {
+            if (clearFirst)
+                doc.remove(0, doc.getLength()); // set panel's text to empty to "reset it"
+            for (Span span : batch)
+                doc.insertString(doc.getLength(), span.text, styleFor(span.color)); // insert text at end the panel
+            if (doc.getLength() > scrollback)
+                trim();
+        }
+        catch (BadLocationException e) { }
+    }
+
+    /**
+     * Drops the oldest lines, leaving at most the scrollback less a chunk, so trimming happens once per
+     * TRIM_CHARS of new text. Lines are dropped whole, and the line being written to is never dropped.
+     */
+    private void trim() throws BadLocationException {
+        Element root = doc.getDefaultRootElement();
+        int cut = doc.getLength() - Math.max(0, scrollback - TRIM_CHARS);
+        int line = root.getElementIndex(cut);
+        int end = line < root.getElementCount() - 1 ? root.getElement(line).getEndOffset() : root.getElement(line).getStartOffset();
+        if (end > 0)
+            doc.remove(0, end);
+    }
+
+    private AttributeSet styleFor(TextColor color) {
+        return styles.computeIfAbsent(color, c -> {
+            SimpleAttributeSet style = new SimpleAttributeSet();
+            StyleConstants.setFontSize(style, 16); // apply font size to custom style
+            StyleConstants.setForeground(style, new Color(c.getRGB())); // apply color to custom style
+            return style;
+        });
+    }
+
+    private record Span(String text, TextColor color) { }
+}
@@ -0,0 +1,15 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * A Player is one hunter together with everything that belongs to their own game session: where their game is shown,
+ * where their answers come from, their random numbers and where what they do is published.<p>
+ * Towns and shops hold none of these themselves, so that several players can be in the same town at once.
+ *
+ * @param hunter The player's hunter.
+ * @param window Where the player's game is displayed.
+ * @param policy Where the player's answers to the game's prompts come from.
+ * @param rng The source of random numbers for the player's own actions.
+ * @param events Where everything that happens to the player is published.
+ */
+public record Player(Hunter hunter, OutputSink window, DecisionPolicy policy, RandomGenerator rng, EventBus events) {
+}
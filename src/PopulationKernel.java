@@ -0,0 +1,336 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The PopulationKernel plays huge populations of GreedyPolicy hunters by the game's own rules, without creating a
+ * Hunter, Town, Shop or Terrain for any of them.<p>
+ * Each hunter is one index into a set of parallel primitive arrays: gold, turns taken, a kit bitmask over item
+ * ordinals, a treasure bitmask, the terrain and treasure of the town the hunter is in, the town's flags, the game's
+ * outcome and the state of the hunter's own random number generator. The population is split into chunks of CHUNK
+ * hunters that worker threads claim from a shared counter. A worker advances its whole chunk one turn at a time
+ * until every game in it is over, so each turn is a sweep over short runs of neighbouring memory.<p>
+ * The rules are those of Town.huntForTreasure, digForGold, lookForTrouble and leaveTown and of buying in a Shop,
+ * and each hunter draws its random numbers exactly as a SplittableRandom with the same seed would, in the same
+ * order as the object engine. Hunter g of a population seeded with s therefore plays the very game that
+ * SimulationEngine plays as game g of a batch seeded with s, which is what validate checks.
+ */
+
+public class PopulationKernel {
+    // static variables
+    private static final int CHUNK = 4096;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    // town flags
+    private static final int TOUGH_TOWN = 1;
+    private static final int SEARCHED = 1 << 1;
+    private static final int DUG = 1 << 2;
+
+    // outcomes, indexed into OUTCOMES
+    private static final byte PLAYING = 0;
+    private static final byte WIN = 1;
+    private static final byte LOSS = 2;
+    private static final byte QUIT = 3;
+    private static final GameResult.Outcome[] OUTCOMES =
+            {null, GameResult.Outcome.WIN, GameResult.Outcome.LOSS, GameResult.Outcome.QUIT};
+
+    private static final int SHOVEL = 1 << Item.SHOVEL.ordinal();
+    private static final int KATANA = 1 << Item.KATANA.ordinal();
+    private static final int ALL_TREASURES = (1 << Treasure.COLLECTIBLE_COUNT) - 1;
+
+    // by terrain kind: the item needed, every item that crosses it as a kit mask, and whether a katana cuts through
+    private static final int[] NEEDED = new int[Terrain.KINDS];
+    private static final int[] CROSSES = new int[Terrain.KINDS];
+    private static final boolean[] SLICED = new boolean[Terrain.KINDS];
+
+    static {
+        for (int kind = 0; kind < Terrain.KINDS; kind++) {
+            Terrain terrain = Terrain.of(kind);
+            NEEDED[kind] = terrain.getNeededItem().ordinal();
+            CROSSES[kind] = 1 << NEEDED[kind];
+            if (terrain.getSecondaryItem() != null)
+                CROSSES[kind] |= 1 << terrain.getSecondaryItem().ordinal();
+            SLICED[kind] = terrain.getSecondaryItem() == Item.KATANA;
+        }
+    }
+
+    // instance variables
+    private final int size;
+    private final int maxTurns;
+    private final int startingGold;
+    private final double toughness;
+    private final double breakChance;
+    private final int[] buyPrices;
+    private final AliasTable terrainTable;
+    private final AliasTable treasureTable;
+    private final AliasTable brawlGold;
+    private final AliasTable digGold;
+
+    private final long[] seeds;
+    private final int[] gold;
+    private final int[] turns;
+    private final byte[] kits;
+    private final byte[] treasures;
+    private final byte[] terrains;
+    private final byte[] townTreasures;
+    private final byte[] flags;
+    private final byte[] outcomes;
+
+    /**
+     * @param size The number of hunters.
+     * @param difficulty The answer given at the difficulty prompt ("e", "n", "h" or "s").
+     * @param maxTurns The number of menu choices after which a hunter gives up and exits, as in GreedyPolicy.
+     */
+    public PopulationKernel(int size, String difficulty, int maxTurns) {
+        Difficulty played = switch (difficulty) {
+            case "e" -> Difficulty.EASY;
+            case "h" -> Difficulty.HARD;
+            case "s" -> Difficulty.SAMURAI;
+            default -> Difficulty.NORMAL;
+        };
+        this.size = size;
+        this.maxTurns = maxTurns;
+        startingGold = played.getStartingGold();
+        toughness = played.getToughness();
+        breakChance = played.getBreakChance();
+        terrainTable = played.getTerrains();
+        treasureTable = played.getTreasures();
+        brawlGold = played.getBrawlGold();
+        digGold = played.getDigGold();
+        buyPrices = new int[Item.values().length];
+        for (Item item : Item.values())
+            buyPrices[item.ordinal()] = played.getPrices().getBuyPrice(item);
+
+        seeds = new long[size];
+        gold = new int[size];
+        turns = new int[size];
+        kits = new byte[size];
+        treasures = new byte[size];
+        terrains = new byte[size];
+        townTreasures = new byte[size];
+        flags = new byte[size];
+        outcomes = new byte[size];
+    }
+
+    /**
+     * Plays every hunter's game to the end.<p>
+     * Hunter g is seeded from seed + g, so the totals are the same whichever thread plays each chunk.
+     *
+     * @param seed The seed for the population.
+     * @param threads The number of worker threads.
+     * @return The totals for the whole population.
+     */
+    public SimulationReport run(long seed, int threads) {
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<SimulationReport>> parts = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < threads; i++) {
+                parts.add(pool.submit(() -> {
+                    SimulationReport part = new SimulationReport();
+                    int first;
+                    while ((first = next.getAndAdd(CHUNK)) < size) {
+                        int last = Math.min(size, first + CHUNK);
+                        playChunk(seed, first, last);
+                        for (int h = first; h < last; h++)
+                            part.add(OUTCOMES[outcomes[h]], gold[h], turns[h]);
+                    }
+                    return part;
+                }));
+            }
+
+            SimulationReport report = new SimulationReport();
+            for (Future<SimulationReport> part : parts)
+                report.merge(part.get());
+            report.setElapsedNanos(System.nanoTime() - start);
+            return report;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation was interrupted", e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("A chunk of hunters failed", e.getCause());
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @param hunter A hunter that has been played.
+     * @return How the hunter's game ended, the same as the GameResult the object engine gives for it.
+     */
+    public GameResult resultOf(int hunter) {
+        return new GameResult(OUTCOMES[outcomes[hunter]], gold[hunter], Integer.bitCount(treasures[hunter]), turns[hunter]);
+    }
+
+    /**
+     * Starts the games of a chunk of hunters and advances them all a turn at a time until every one is over.
+     */
+    private void playChunk(long seed, int from, int to) {
+        for (int h = from; h < to; h++) {
+            seeds[h] = seed + h;
+            gold[h] = startingGold;
+            turns[h] = 0;
+            kits[h] = 0;
+            treasures[h] = 0;
+            outcomes[h] = PLAYING;
+            enterTown(h);
+        }
+        int playing = to - from;
+        while (playing > 0) {
+            for (int h = from; h < to; h++) {
+                if (outcomes[h] == PLAYING && (outcomes[h] = playTurn(h)) != PLAYING)
+                    playing--;
+            }
+        }
+    }
+
+    /**
+     * Plays one turn of TreasureHunter.playTurn with the move GreedyPolicy would choose.
+     *
+     * @return The outcome of the game, or PLAYING if it goes on.
+     */
+    private byte playTurn(int h) {
+        if (treasures[h] == ALL_TREASURES)
+            return WIN;
+        if (gold[h] < 0)
+            return LOSS;
+        if (++turns[h] > maxTurns)
+            return QUIT;
+
+        int kit = kits[h] & 0xFF;
+        int flag = flags[h];
+        if ((flag & SEARCHED) == 0) {
+            flags[h] = (byte) (flag | SEARCHED);
+            int treasure = townTreasures[h];
+            if (treasure < Treasure.COLLECTIBLE_COUNT)
+                treasures[h] |= (byte) (1 << treasure);
+        }
+        else if ((flag & DUG) == 0 && (kit & SHOVEL) != 0) {
+            flags[h] = (byte) (flag | DUG);
+            if (nextDouble(h) >= 0.5)
+                gold[h] += digGold.sample(nextDouble(h)) + 1;
+        }
+        else {
+            int terrain = terrains[h];
+            if ((kit & CROSSES[terrain]) == 0) {
+                int needed = NEEDED[terrain];
+                int cost = buyPrices[needed];
+                if (cost >= 0 && gold[h] >= cost)
+                    buy(h, kit, needed, cost);
+                else
+                    lookForTrouble(h, kit, flag);
+            }
+            else if ((kit & SHOVEL) == 0 && gold[h] >= 2 * buyPrices[Item.SHOVEL.ordinal()])
+                buy(h, kit, Item.SHOVEL.ordinal(), buyPrices[Item.SHOVEL.ordinal()]);
+            else
+                leaveTown(h, kit, terrain);
+        }
+        return PLAYING;
+    }
+
+    private void buy(int h, int kit, int item, int cost) {
+        kits[h] = (byte) (kit | 1 << item);
+        if ((kit & KATANA) == 0) // the shopkeeper gives a samurai everything for free
+            gold[h] -= cost;
+    }
+
+    private void lookForTrouble(int h, int kit, int flag) {
+        boolean toughTown = (flag & TOUGH_TOWN) != 0;
+        double noTroubleChance = toughTown ? 0.4 : 0.7;
+        double fightDifficulty = toughTown ? toughness : 0.8 * toughness;
+        if (nextDouble(h) < noTroubleChance)
+            return;
+        int goldDiff = brawlGold.sample(nextDouble(h)) + 1;
+        if ((kit & KATANA) != 0 || nextDouble(h) > fightDifficulty)
+            gold[h] += goldDiff;
+        else
+            gold[h] -= goldDiff;
+    }
+
+    private void leaveTown(int h, int kit, int terrain) {
+        boolean sliced = SLICED[terrain] && (kit & KATANA) != 0;
+        if (!sliced && nextDouble(h) < breakChance)
+            kits[h] = (byte) (kit & ~(1 << NEEDED[terrain]));
+        enterTown(h);
+    }
+
+    /**
+     * Rolls a new town for the hunter, as the Town constructor does.
+     */
+    private void enterTown(int h) {
+        townTreasures[h] = (byte) treasureTable.sample(nextDouble(h));
+        flags[h] = (byte) (nextDouble(h) < toughness ? TOUGH_TOWN : 0);
+        terrains[h] = (byte) terrainTable.sample(nextDouble(h));
+    }
+
+    /**
+     * Draws the hunter's next random double, exactly as SplittableRandom.nextDouble would.
+     */
+    private double nextDouble(int h) {
+        long z = seeds[h] += GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return ((z ^ (z >>> 31)) >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * Plays every game of a population again with the object engine, one Hunter and Town at a time, and counts
+     * the games that did not end exactly as the kernel says.
+     *
+     * @param seed The seed the kernel was run with.
+     * @param difficulty The answer given at the difficulty prompt.
+     * @return The number of games that differ.
+     */
+    public long validate(long seed, String difficulty) {
+        long mismatches = 0;
+        for (int h = 0; h < size; h++) {
+            GameResult expected = SimulationEngine.playOne(new GreedyPolicy(difficulty, maxTurns),
+                    new SplittableRandom(seed + h), GameObserver.NONE);
+            GameResult actual = resultOf(h);
+            if (expected.getOutcome() != actual.getOutcome() || expected.getGold() != actual.getGold()
+                    || expected.getTreasures() != actual.getTreasures() || expected.getTurns() != actual.getTurns())
+                mismatches++;
+        }
+        return mismatches;
+    }
+
+    /**
+     * Plays a population of GreedyPolicy hunters and prints the totals. With --validate, every game is played
+     * again with SimulationEngine and both sets of totals are printed, along with how many games differ; the run
+     * exits with status 1 if any do.<p>
+     * Arguments: [hunters] [threads] [difficulty] [seed] [--validate]
+     */
+    public static void main(String[] args) {
+        boolean validate = args.length > 0 && args[args.length - 1].equals("--validate");
+        if (validate)
+            args = Arrays.copyOf(args, args.length - 1);
+        int hunters = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String difficulty = args.length > 2 ? args[2] : "n";
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : new SplittableRandom().nextLong();
+
+        PopulationKernel kernel = new PopulationKernel(hunters, difficulty, 500);
+        SimulationReport report = kernel.run(seed, threads);
+        System.out.println("kernel: " + report);
+        if (!validate)
+            return;
+
+        SimulationReport objects = new SimulationEngine(threads).run(hunters, seed, () -> new GreedyPolicy(difficulty, 500));
+        System.out.println("objects: " + objects);
+        long mismatches = kernel.validate(seed, difficulty);
+        System.out.printf("games that played out differently: %d of %d%n", mismatches, hunters);
+        if (mismatches != 0)
+            System.exit(1);
+    }
+}
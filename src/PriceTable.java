@@ -0,0 +1,79 @@
+/**
+ * The PriceTable class holds what a shop charges and pays for every item, indexed by the item's ordinal.<p>
+ * Sell prices already have the markdown applied, and items that are not for sale are priced at -1,
+ * so a lookup is just an array access.
+ */
+
+public class PriceTable {
+    private static final Item[] ITEMS = Item.values();
+
+    // instance variables
+    private final int[] buyPrices;
+    private final int[] sellPrices;
+    private final String[] priceLabels;
+
+    /**
+     * @param markdown Percentage of markdown for selling items in decimal format.
+     * @param samurai Whether the katana is for sale.
+     */
+    public PriceTable(double markdown, boolean samurai) {
+        this(listPrices(samurai), markdown);
+    }
+
+    /**
+     * @param buyPrices The cost of every item, indexed by ordinal, or -1 for items that are not for sale.
+     * @param markdown Percentage of markdown for selling items in decimal format.
+     */
+    public PriceTable(int[] buyPrices, double markdown) {
+        this.buyPrices = buyPrices.clone();
+        sellPrices = new int[ITEMS.length];
+        priceLabels = new String[ITEMS.length];
+        for (int i = 0; i < ITEMS.length; i++) {
+            int cost = buyPrices[i];
+            sellPrices[i] = cost < 0 ? -1 : (int) (cost * markdown);
+            priceLabels[i] = cost + " gold\n";
+        }
+    }
+
+    /**
+     * @param samurai Whether the katana is for sale.
+     * @return Every item's own cost, indexed by ordinal.
+     */
+    private static int[] listPrices(boolean samurai) {
+        int[] prices = new int[ITEMS.length];
+        for (Item item : ITEMS)
+            prices[item.ordinal()] = item == Item.KATANA && !samurai ? -1 : item.getCost();
+        return prices;
+    }
+
+    /**
+     * @param item The item being bought.
+     * @return The cost of the item, or -1 if it is not for sale.
+     */
+    public int getBuyPrice(Item item) {
+        return buyPrices[item.ordinal()];
+    }
+
+    /**
+     * @param item The item being sold.
+     * @return The amount a shop pays for the item, or -1 if it is not bought.
+     */
+    public int getSellPrice(Item item) {
+        return sellPrices[item.ordinal()];
+    }
+
+    /**
+     * Writes the list of items for sale and their prices to the window.
+     *
+     * @param window Where the list is written.
+     */
+    public void printListing(OutputSink window) {
+        for (Item item : ITEMS) {
+            int i = item.ordinal();
+            if (buyPrices[i] >= 0) {
+                window.addTextToWindow(item.getLabel(), item.getColor());
+                window.addTextToWindow(priceLabels[i], TextColor.ORANGE);
+            }
+        }
+    }
+}
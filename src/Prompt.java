@@ -0,0 +1,15 @@
+/**
+ * The Prompt enum lists every point in the Treasure Hunter game where the player is asked for a line of input.
+ * A DecisionPolicy is told which prompt it is answering so that it can respond without parsing the window text.
+ */
+
+public enum Prompt {
+    NAME,
+    DIFFICULTY,
+    MENU,
+    BUY_ITEM,
+    BUY_CONFIRM,
+    SELL_ITEM,
+    SELL_CONFIRM,
+    DESTINATION
+}
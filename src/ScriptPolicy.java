@@ -0,0 +1,48 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The ScriptPolicy plays from a script of answers, one per line, that is read in full before play starts.<p>
+ * Answers are handed out from memory in order, whatever the prompt, so a scripted game never waits on input and
+ * runs as fast as the game itself. Games played one after another with the same policy carry on where the last
+ * one stopped, so one script can drive a whole batch of games. Once the script runs out the player gives up,
+ * the same as when a StreamPolicy's connection closes.
+ */
+
+public class ScriptPolicy implements DecisionPolicy {
+    // instance variables
+    private final String[] lines;
+    private int next;
+
+    /**
+     * @param script The answers, one per line.
+     */
+    public ScriptPolicy(String script) {
+        lines = script.lines().toArray(String[]::new);
+    }
+
+    /**
+     * Reads a whole script from a stream, such as a file or standard input.
+     *
+     * @param in The stream, which is read to the end but not closed.
+     * @return A policy that plays the script.
+     */
+    public static ScriptPolicy read(InputStream in) throws IOException {
+        return new ScriptPolicy(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return Whether any answers are left.
+     */
+    public boolean hasNext() {
+        return next < lines.length;
+    }
+
+    @Override
+    public String nextLine(Prompt prompt, Hunter hunter) {
+        if (next < lines.length)
+            return lines[next++];
+        return prompt == Prompt.MENU ? "x" : "";
+    }
+}
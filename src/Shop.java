@@ -1,174 +1,183 @@
-import java.awt.*;
-import java.util.Scanner;
-
 /**
  * The Shop class controls the cost of the items in the Treasure Hunt game. <p>
  * The Shop class also acts as a go between for the Hunter's buyItem() method. <p>
- * This code has been adapted from Ivan Turner's original program -- thank you, Mr. Turner!
+ * This code has been adapted from Ivan Turner's original program -- thank you, Mr. Turner!<p>
+ * A shop only holds its prices: every visit is told which Player is shopping, so one shop can serve
+ * several hunters at once. A shop in a Market charges the market's current prices and counts its trades there;
+ * a customer always pays the price they were quoted, even if the market moves before they say yes.<p>
+ * The shopkeeper's questions are written straight to the customer's window, but how a purchase or sale turns out
+ * is published to the customer's EventBus.
  */
 
 public class Shop {
-    // constants
-    private static final int KATANA_COST = 0;
-    private static final int WATER_COST = 2;
-    private static final int ROPE_COST = 4;
-    private static final int MACHETE_COST = 6;
-    private static final int SHOVEL_COST = 8;
-    private static final int BOOTS_COST = 10;
-    private static final int HORSE_COST = 12;
-    private static final int BOAT_COST = 20;
-
-    // static variables
-    private static final Scanner SCANNER = new Scanner(System.in);
-    private static OutputWindow WINDOW;
-
     // instance variables
-    private double markdown;
-    private Hunter customer;
-    private boolean isSamurai;
+    private final PriceTable prices;
+    private final Market market;
+
+    /**
+     * The Shop constructor takes in a price table.
+     *
+     * @param prices The buy and sell prices for the game's difficulty.
+     */
+    public Shop(PriceTable prices) {
+        this.prices = prices;
+        market = null;
+    }
 
     /**
-     * The Shop constructor takes in a markdown value and leaves customer null until one enters the shop.
+     * Makes a shop that trades at a market's prices.
      *
-     * @param markdown Percentage of markdown for selling items in decimal format.
+     * @param market The market shared by every shop of the game's difficulty.
      */
-    public Shop(double markdown, boolean samurai, OutputWindow window) {
-        this.markdown = markdown;
-        isSamurai = samurai;
-        customer = null; // customer is set in the enter method
-        WINDOW = window;
+    public Shop(Market market) {
+        prices = null;
+        this.market = market;
     }
 
     /**
      * Method for entering the shop.
      *
-     * @param hunter the Hunter entering the shop
+     * @param player the player entering the shop
      * @param buyOrSell String that determines if hunter is "B"uying or "S"elling
-     * @return a String to be used for printing in the latest news
      */
-    public void enter(Hunter hunter, String buyOrSell) {
-        customer = hunter;
+    public void enter(Player player, String buyOrSell) {
+        OutputSink window = player.window();
         if (buyOrSell.equals("b")) {
-            WINDOW.addTextToWindow("Welcome to the shop! We have the finest wares in town.\n", Color.white);
-            WINDOW.addTextToWindow("Currently we have the following items:\n", Color.white);
-            inventory();
-            WINDOW.addTextToWindow("What're you lookin' to buy?\n", Color.white);
-            String item = SCANNER.nextLine().toLowerCase();
+            window.addTextToWindow("Welcome to the shop! We have the finest wares in town.\n", TextColor.WHITE);
+            window.addTextToWindow("Currently we have the following items:\n", TextColor.WHITE);
+            inventory(window);
+            window.addTextToWindow("What're you lookin' to buy?\n", TextColor.WHITE);
+            String item = ask(player, Prompt.BUY_ITEM);
             int cost = checkMarketPrice(item, true);
             if (cost == -1)
-                WINDOW.addTextToWindow("We ain't got none of those.\n", Color.white);
+                window.addTextToWindow("We ain't got none of those.\n", TextColor.WHITE);
             else {
-                WINDOW.addTextToWindow("It'll cost you ", Color.white);
-                WINDOW.addTextToWindow(cost + " gold", Color.orange);
-                WINDOW.addTextToWindow(". Buy it (y/n)?\n", Color.white);
-                String option = SCANNER.nextLine().toLowerCase();
+                window.addTextToWindow("It'll cost you ", TextColor.WHITE);
+                window.addTextToWindow(GoldLabels.of(cost), TextColor.ORANGE);
+                window.addTextToWindow(". Buy it (y/n)?\n", TextColor.WHITE);
+                String option = ask(player, Prompt.BUY_CONFIRM);
                 if (option.equals("y"))
-                    buyItem(item);
+                    buyItem(player, item, cost);
             }
         } else {
-            WINDOW.addTextToWindow("What're you lookin' to sell?\n", Color.white);
-            WINDOW.addTextToWindow("You currently have the following items:\n", Color.white);
-            customer.printInventory();
-            WINDOW.addTextToWindow("\n", Color.white);
-            String item = SCANNER.nextLine().toLowerCase();
+            window.addTextToWindow("What're you lookin' to sell?\n", TextColor.WHITE);
+            window.addTextToWindow("You currently have the following items:\n", TextColor.WHITE);
+            player.hunter().printInventory();
+            window.addTextToWindow("\n", TextColor.WHITE);
+            String item = ask(player, Prompt.SELL_ITEM);
             int cost = checkMarketPrice(item, false);
             if (cost == 0 || cost == -1)
-                WINDOW.addTextToWindow("We don't want none of those.\n", Color.white);
+                window.addTextToWindow("We don't want none of those.\n", TextColor.WHITE);
             else {
-                WINDOW.addTextToWindow("It'll get you ", Color.white);
-                WINDOW.addTextToWindow(cost + " gold", Color.orange);
-                WINDOW.addTextToWindow(". Sell it (y/n)?\n", Color.white);
-                String option = SCANNER.nextLine().toLowerCase();
+                window.addTextToWindow("It'll get you ", TextColor.WHITE);
+                window.addTextToWindow(GoldLabels.of(cost), TextColor.ORANGE);
+                window.addTextToWindow(". Sell it (y/n)?\n", TextColor.WHITE);
+                String option = ask(player, Prompt.SELL_CONFIRM);
                 if (option.equals("y"))
-                    sellItem(item);
+                    sellItem(player, item, cost);
             }
         }
-        WINDOW.addTextToWindow("You left the shop.\n", Color.white);
+        window.addTextToWindow("You left the shop.\n", TextColor.WHITE);
+    }
+
+    /**
+     * Shows the customer everything the shopkeeper has said so far and waits for their answer.
+     *
+     * @param player The customer.
+     * @param prompt The question being asked.
+     * @return The customer's answer in lower case.
+     */
+    private String ask(Player player, Prompt prompt) {
+        player.window().flush();
+        return player.policy().nextLine(prompt, player.hunter()).toLowerCase();
     }
 
     /**
      * A method that returns a string showing the items available in the shop
      * (all shops sell the same items).
      *
-     * @return the string representing the shop's items available for purchase and their prices.
+     * @param window Where the items are shown.
      */
-    public void inventory() {
-        if (isSamurai) {
-            WINDOW.addTextToWindow("KATANA: ", Color.red);
-            WINDOW.addTextToWindow(KATANA_COST + " gold\n", Color.orange);
-        }
-        WINDOW.addTextToWindow("Water: ", Color.pink);
-        WINDOW.addTextToWindow(WATER_COST + " gold\n", Color.orange);
-        WINDOW.addTextToWindow("Rope: ", Color.pink);
-        WINDOW.addTextToWindow(ROPE_COST + " gold\n", Color.orange);
-        WINDOW.addTextToWindow("Machete: ", Color.pink);
-        WINDOW.addTextToWindow(MACHETE_COST + " gold\n", Color.orange);
-        WINDOW.addTextToWindow("Boots: ", Color.pink);
-        WINDOW.addTextToWindow(BOOTS_COST + " gold\n", Color.orange);
-        WINDOW.addTextToWindow("Shovel: ", Color.pink);
-        WINDOW.addTextToWindow(SHOVEL_COST + " gold\n", Color.orange);
-        WINDOW.addTextToWindow("Horse: ", Color.pink);
-        WINDOW.addTextToWindow(HORSE_COST + " gold\n", Color.orange);
-        WINDOW.addTextToWindow("Boat: ", Color.pink);
-        WINDOW.addTextToWindow(BOAT_COST + " gold\n", Color.orange);
-        WINDOW.addTextToWindow("\n", Color.white);
+    public void inventory(OutputSink window) {
+        prices().printListing(window);
+        window.addTextToWindow("\n", TextColor.WHITE);
     }
 
     /**
      * A method that lets the customer (a Hunter) buy an item.
      *
+     * @param player The customer.
+     * @param item The item being bought.
+     */
+    public void buyItem(Player player, String item) {
+        buyItem(player, item, checkMarketPrice(item, true));
+    }
+
+    /**
+     * Lets the customer buy an item at a price they have been quoted.
+     *
+     * @param player The customer.
      * @param item The item being bought.
+     * @param costOfItem The price quoted.
      */
-    public void buyItem(String item) {
-        WINDOW.clear();
-        int costOfItem = checkMarketPrice(item, true);
-        if (customer.buyItem(item, costOfItem)) {
-            if (customer.hasItemInKit("katana")) {
-                WINDOW.addTextToWindow("Nice ", Color.white);
-                WINDOW.addTextToWindow("katana", Color.red);
-                WINDOW.addTextToWindow(" you have there sir... Just this once I can give you the ", Color.white);
-                WINDOW.addTextToWindow(item, Color.pink);
-                WINDOW.addTextToWindow(" for free. Just don't start swinging...\n", Color.white);
+    private void buyItem(Player player, String item, int costOfItem) {
+        Hunter customer = player.hunter();
+        EventBus events = player.events();
+        player.window().clear();
+        Item wanted = Item.fromName(item);
+        // an item the katana gets for free still leaves the shop, so it counts toward the market's demand
+        if (customer.buyItem(wanted, costOfItem)) {
+            if (market != null)
+                market.recordBuy(wanted);
+            if (customer.hasItemInKit(Item.KATANA)) {
                 customer.changeGold(costOfItem);
+                if (events.isActive())
+                    events.publish(new GameEvent.KatanaDiscount(wanted, true));
             }
-            else {
-                WINDOW.addTextToWindow("Ye' got yerself a ", Color.white);
-                WINDOW.addTextToWindow(item, Color.pink);
-                WINDOW.addTextToWindow(". Come again soon.\n", Color.white);
-            }
+            else if (events.isActive())
+                events.publish(new GameEvent.ItemBought(wanted, costOfItem));
         } else {
-            if (customer.getGold() < costOfItem) {
-                if (customer.hasItemInKit("katana")) {
-                    WINDOW.addTextToWindow("It seems you don't have enough gold for that. B-but your ", Color.white);
-                    WINDOW.addTextToWindow("katana", Color.red);
-                    WINDOW.addTextToWindow(" looks mighty frightening, just take the ", Color.white);
-                    WINDOW.addTextToWindow(item, Color.pink);
-                    WINDOW.addTextToWindow(" and don't hurt me!\n", Color.white);
-                    customer.buyItem(item, 0);
-                }
-                else
-                    WINDOW.addTextToWindow("I'm afraid you don't have enough gold, come back when you're a little, mmmm richer.\n", Color.white);
-            }
-            else {
-                WINDOW.addTextToWindow("It seems you already have a ", Color.white);
-                WINDOW.addTextToWindow(item, Color.pink);
-                WINDOW.addTextToWindow(".\n", Color.white);
+            if (customer.getGold() < costOfItem && customer.hasItemInKit(Item.KATANA)) {
+                customer.buyItem(wanted, 0);
+                if (market != null)
+                    market.recordBuy(wanted);
+                if (events.isActive())
+                    events.publish(new GameEvent.KatanaDiscount(wanted, false));
             }
+            else if (events.isActive())
+                events.publish(new GameEvent.PurchaseRefused(item, customer.getGold() >= costOfItem));
         }
     }
 
     /**
      * A pathway method that lets the Hunter sell an item.
      *
+     * @param player The customer.
      * @param item The item being sold.
      */
-    public void sellItem(String item) {
-        WINDOW.clear();
-        int buyBackPrice = checkMarketPrice(item, false);
-        if (customer.sellItem(item, buyBackPrice))
-            WINDOW.addTextToWindow("Pleasure doin' business with you.\n", Color.white);
-        else
-            WINDOW.addTextToWindow("Stop stringin' me along!\n", Color.white);
+    public void sellItem(Player player, String item) {
+        sellItem(player, item, checkMarketPrice(item, false));
+    }
+
+    /**
+     * Lets the Hunter sell an item at a price they have been quoted.
+     *
+     * @param player The customer.
+     * @param item The item being sold.
+     * @param buyBackPrice The price quoted.
+     */
+    private void sellItem(Player player, String item, int buyBackPrice) {
+        EventBus events = player.events();
+        player.window().clear();
+        Item sold = Item.fromName(item);
+        if (player.hunter().sellItem(sold, buyBackPrice)) {
+            if (market != null)
+                market.recordSell(sold);
+            if (events.isActive())
+                events.publish(new GameEvent.ItemSold(sold, buyBackPrice));
+        }
+        else if (events.isActive())
+            events.publish(new GameEvent.SaleRefused());
     }
 
     /**
@@ -176,39 +185,31 @@ public class Shop {
      *
      * @param item The item in question.
      * @param isBuying Whether the item is being bought or sold.
-     * @return The cost of buying or selling the item based on the isBuying parameter.
+     * @return The cost of buying or selling the item based on the isBuying parameter, or -1 if the item is not found.
      */
     public int checkMarketPrice(String item, boolean isBuying) {
-        return isBuying ? getCostOfItem(item) : getBuyBackCost(item);
+        Item found = Item.fromName(item);
+        if (found == null)
+            return -1;
+        return checkMarketPrice(found, isBuying);
     }
 
     /**
-     * Checks the item entered against the costs listed in the static variables.
+     * Determines and returns the cost of buying or selling an item.
      *
-     * @param item The item being checked for cost.
-     * @return The cost of the item or -1 if the item is not found.
+     * @param item The item in question.
+     * @param isBuying Whether the item is being bought or sold.
+     * @return The cost of buying or selling the item based on the isBuying parameter.
      */
-    public int getCostOfItem(String item) {
-        return switch (item) {
-            case "water" -> WATER_COST;
-            case "rope" -> ROPE_COST;
-            case "machete" -> MACHETE_COST;
-            case "boots" -> BOOTS_COST;
-            case "shovel" -> SHOVEL_COST;
-            case "horse" -> HORSE_COST;
-            case "boat" -> BOAT_COST;
-            case "katana" -> isSamurai ? KATANA_COST : -1;
-            default -> -1;
-        };
+    public int checkMarketPrice(Item item, boolean isBuying) {
+        PriceTable current = prices();
+        return isBuying ? current.getBuyPrice(item) : current.getSellPrice(item);
     }
 
     /**
-     * Checks the cost of an item and applies the markdown.
-     *
-     * @param item The item being sold.
-     * @return The sell price of the item.
+     * @return The prices right now.
      */
-    public int getBuyBackCost(String item) {
-        return (int) (getCostOfItem(item) * markdown);
+    private PriceTable prices() {
+        return market == null ? prices : market.getPrices();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,157 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The SimulationEngine plays complete games of Treasure Hunter without a window or a keyboard.<p>
+ * Games write to the NullOutput, so no text is ever rendered.
+ * Each game is driven by its own DecisionPolicy and the games are spread across a pool of worker threads.
+ * Workers claim games in chunks from a shared counter and keep their own totals, so they only meet at the end.
+ */
+
+public class SimulationEngine {
+    // static variables
+    private static final int CHUNK = 256;
+
+    // instance variables
+    private final int threads;
+    private Path journalDirectory;
+
+    /**
+     * Creates an engine that uses every available core.
+     */
+    public SimulationEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threads The number of worker threads to play games on.
+     */
+    public SimulationEngine(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Turns on journaling. Each worker thread writes its own journal in a subdirectory named worker-N,
+     * with records numbered by game. Running again into the same directory adds a new run rather than mixing games.
+     *
+     * @param journalDirectory Where the journals are written, or null to turn journaling off.
+     */
+    public void setJournalDirectory(Path journalDirectory) {
+        this.journalDirectory = journalDirectory;
+    }
+
+    /**
+     * Plays a batch of games from a random seed.
+     *
+     * @param games The number of games to play.
+     * @param policies Creates a fresh policy for each game.
+     * @return The totals for the whole batch.
+     */
+    public SimulationReport run(long games, Supplier<DecisionPolicy> policies) {
+        return run(games, new SplittableRandom().nextLong(), policies);
+    }
+
+    /**
+     * Plays a batch of games.<p>
+     * Game number g is seeded from seed + g, so the batch gives the same totals whichever thread plays each game.
+     *
+     * @param games The number of games to play.
+     * @param seed The seed for the batch.
+     * @param policies Creates a fresh policy for each game.
+     * @return The totals for the whole batch.
+     */
+    public SimulationReport run(long games, long seed, Supplier<DecisionPolicy> policies) {
+        AtomicLong next = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<SimulationReport>> parts = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < threads; i++) {
+                int worker = i;
+                parts.add(pool.submit(() -> {
+                    SimulationReport part = new SimulationReport();
+                    Journal journal = openJournal(worker);
+                    long first;
+                    while ((first = next.getAndAdd(CHUNK)) < games) {
+                        long last = Math.min(games, first + CHUNK);
+                        for (long g = first; g < last; g++) {
+                            GameObserver observer = journal == null ? GameObserver.NONE : journal.recorder((int) g);
+                            part.add(playOne(policies.get(), new SplittableRandom(seed + g), observer));
+                        }
+                    }
+                    if (journal != null)
+                        journal.close();
+                    return part;
+                }));
+            }
+
+            SimulationReport report = new SimulationReport();
+            for (Future<SimulationReport> part : parts)
+                report.merge(part.get());
+            report.setElapsedNanos(System.nanoTime() - start);
+            return report;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation was interrupted", e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("A simulated game failed", e.getCause());
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Journal openJournal(int worker) {
+        if (journalDirectory == null)
+            return null;
+        try {
+            return new Journal(journalDirectory.resolve("worker-" + worker));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Plays a single game headlessly on the calling thread.
+     *
+     * @param policy The policy that makes the player's choices.
+     * @param rng The game's source of random numbers.
+     * @param observer Told about every change made in the game.
+     * @return The result of the game.
+     */
+    public static GameResult playOne(DecisionPolicy policy, SplittableRandom rng, GameObserver observer) {
+        TreasureHunter game = new TreasureHunter(NullOutput.INSTANCE, policy, rng);
+        game.addObserver(observer);
+        return game.play();
+    }
+
+    /**
+     * Runs a batch of games played by the GreedyPolicy and prints the throughput.<p>
+     * Arguments: [games] [threads] [difficulty] [seed] [journal directory]
+     */
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String difficulty = args.length > 2 ? args[2] : "n";
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : new SplittableRandom().nextLong();
+
+        SimulationEngine engine = new SimulationEngine(threads);
+        if (args.length > 4)
+            engine.setJournalDirectory(Path.of(args[4]));
+        SimulationReport report = engine.run(games, seed, () -> new GreedyPolicy(difficulty, 500));
+        System.out.println(report);
+    }
+}
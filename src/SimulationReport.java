@@ -0,0 +1,109 @@
+/**
+ * The SimulationReport class totals up the results of a batch of simulated games.
+ */
+
+public class SimulationReport {
+    // instance variables
+    private long games;
+    private long wins;
+    private long losses;
+    private long quits;
+    private long totalGold;
+    private long totalTurns;
+    private long elapsedNanos;
+
+    /**
+     * Adds one finished game to the totals.
+     *
+     * @param result The result of the game.
+     */
+    public void add(GameResult result) {
+        add(result.getOutcome(), result.getGold(), result.getTurns());
+    }
+
+    /**
+     * Adds one finished game to the totals, for callers that keep games in primitive arrays rather than GameResults.
+     *
+     * @param outcome How the game ended.
+     * @param gold The gold the hunter finished with.
+     * @param turns The number of turns the game took.
+     */
+    public void add(GameResult.Outcome outcome, int gold, int turns) {
+        games++;
+        switch (outcome) {
+            case WIN -> wins++;
+            case LOSS -> losses++;
+            case QUIT -> quits++;
+        }
+        totalGold += gold;
+        totalTurns += turns;
+    }
+
+    /**
+     * Adds all the games of another report to this one.
+     *
+     * @param other The report to merge in.
+     */
+    public void merge(SimulationReport other) {
+        games += other.games;
+        wins += other.wins;
+        losses += other.losses;
+        quits += other.quits;
+        totalGold += other.totalGold;
+        totalTurns += other.totalTurns;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    // accessors
+    public long getGames() {
+        return games;
+    }
+
+    public long getWins() {
+        return wins;
+    }
+
+    public long getLosses() {
+        return losses;
+    }
+
+    public long getQuits() {
+        return quits;
+    }
+
+    public double getWinRate() {
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    public double getMeanGold() {
+        return games == 0 ? 0 : (double) totalGold / games;
+    }
+
+    public double getMeanTurns() {
+        return games == 0 ? 0 : (double) totalTurns / games;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return The throughput of the batch, in games per second.
+     */
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d games in %.2f s (%.0f games/sec)%n"
+                        + "  wins %d (%.2f%%), losses %d, quits %d%n"
+                        + "  mean gold %.2f, mean turns %.2f",
+                games, elapsedNanos / 1e9, getGamesPerSecond(),
+                wins, 100 * getWinRate(), losses, quits,
+                getMeanGold(), getMeanTurns());
+    }
+}
@@ -0,0 +1,111 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.EnumSet;
+import java.util.SplittableRandom;
+
+/**
+ * The SnapshotBenchmark compares GameSnapshot with Java serialization of the same game state,
+ * reporting the size of a save and how many save + restore round trips run per second.
+ */
+
+public class SnapshotBenchmark {
+    /**
+     * The same state GameSnapshot stores, in a form Java serialization can write.
+     */
+    private record SerializedGame(String name, int gold, EnumSet<Item> kit, EnumSet<Treasure> treasures,
+                                  String difficulty, int startingGold, double markdown, double toughness,
+                                  double breakChance, boolean samurai, int turns, Treasure townTreasure,
+                                  int terrainKind, boolean toughTown, boolean alreadySearched, boolean dug)
+            implements Serializable { }
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        TreasureHunter game = sampleGame();
+        SerializedGame mirror = mirror(game);
+
+        byte[] compact = GameSnapshot.save(game);
+        byte[] serialized = serialize(mirror);
+        System.out.println("GameSnapshot:       " + compact.length + " bytes");
+        System.out.println("Java serialization: " + serialized.length + " bytes");
+
+        // warm up both paths before timing them
+        long sink = 0;
+        for (int i = 0; i < rounds / 10; i++) {
+            sink += roundTripSnapshot(game);
+            sink += roundTripSerialization(mirror);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++)
+            sink += roundTripSnapshot(game);
+        long snapshotNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++)
+            sink += roundTripSerialization(mirror);
+        long serializationNanos = System.nanoTime() - start;
+
+        System.out.printf("GameSnapshot:       %,.0f round trips/sec%n", rounds * 1e9 / snapshotNanos);
+        System.out.printf("Java serialization: %,.0f round trips/sec%n", rounds * 1e9 / serializationNanos);
+        if (sink == 42)
+            System.out.println();
+    }
+
+    private static long roundTripSnapshot(TreasureHunter game) {
+        byte[] data = GameSnapshot.save(game);
+        TreasureHunter restored = GameSnapshot.restore(data, NullOutput.INSTANCE, null, null);
+        return data.length + restored.getTurns();
+    }
+
+    private static long roundTripSerialization(SerializedGame game) throws IOException, ClassNotFoundException {
+        byte[] data = serialize(game);
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            SerializedGame restored = (SerializedGame) in.readObject();
+            return data.length + restored.turns();
+        }
+    }
+
+    private static byte[] serialize(SerializedGame game) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(game);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Plays a few turns of a game so the snapshot has some items, treasure and town progress in it.
+     */
+    private static TreasureHunter sampleGame() {
+        TreasureHunter game = new TreasureHunter(NullOutput.INSTANCE, new GreedyPolicy("n", 8), new SplittableRandom(3));
+        game.play();
+        game.getHunter().buyItem(Item.SHOVEL, 0);
+        game.getHunter().addTreasure(Treasure.GEM);
+        return game;
+    }
+
+    private static SerializedGame mirror(TreasureHunter game) {
+        Hunter hunter = game.getHunter();
+        Town town = game.getCurrentTown();
+        Difficulty difficulty = game.getDifficulty();
+        EnumSet<Item> kit = EnumSet.noneOf(Item.class);
+        for (Item item : Item.values()) {
+            if (hunter.hasItemInKit(item))
+                kit.add(item);
+        }
+        EnumSet<Treasure> treasures = EnumSet.noneOf(Treasure.class);
+        for (Treasure treasure : Treasure.values()) {
+            if (hunter.hasItemInTreasureInventory(treasure))
+                treasures.add(treasure);
+        }
+        return new SerializedGame(hunter.getHunterName(), hunter.getGold(), kit, treasures,
+                difficulty.getName(), difficulty.getStartingGold(), difficulty.getMarkdown(), difficulty.getToughness(),
+                difficulty.getBreakChance(), difficulty.isSamurai(), game.getTurns(), town.getTreasure(),
+                town.getTerrain().getKind(), town.isToughTown(), town.isAlreadySearched(), town.isDug());
+    }
+}
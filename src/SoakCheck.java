@@ -0,0 +1,125 @@
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+
+/**
+ * The SoakCheck plays headless turns over and over, as a soak session does, and checks what they allocate.<p>
+ * A turn spent in one town, exploring, hunting, digging, brawling and haggling over an item without taking the
+ * deal, must not allocate at all, so a session can run for days without the garbage collector. If it does, the
+ * check fails and exits with status 1.<p>
+ * Two kinds of turn are left out of that promise, and are measured and reported instead:
+ * <ul>
+ *     <li>moving on, since every new town is a new Town</li>
+ *     <li>turns of a hunter with more gold than GoldLabels keeps labels for, since their gold label is made
+ *     again whenever their gold changes</li>
+ * </ul>
+ */
+
+public class SoakCheck {
+    // static variables
+    private static final int WARMUP_TURNS = 2_000_000;
+    private static final int TURNS = 1_000_000;
+    private static final double ALLOCATION_NOISE = 0.5;
+    private static final int RICH_GOLD = 1_000_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Plays the same turns forever. A travelling soak moves on every few turns and never hunts, since a hunter
+     * who found every treasure would win.
+     */
+    private static class SoakPolicy implements DecisionPolicy {
+        private static final String[] STAYING = {"e", "h", "d", "l", "b", "s"};
+        private static final String[] TRAVELLING = {"e", "d", "l", "b", "s", "m"};
+
+        private final String[] choices;
+        private int turn;
+
+        SoakPolicy(boolean travel) {
+            choices = travel ? TRAVELLING : STAYING;
+        }
+
+        @Override
+        public String nextLine(Prompt prompt, Hunter hunter) {
+            return switch (prompt) {
+                case NAME -> "soak";
+                case MENU -> choices[turn++ % choices.length];
+                case BUY_ITEM -> "rope";
+                case SELL_ITEM -> "shovel";
+                default -> "";
+            };
+        }
+    }
+
+    /**
+     * The turns of one kind of soak session.
+     */
+    static class Soak {
+        private final TreasureHunter game;
+        private final int gold;
+
+        /**
+         * @param travel Whether the hunter moves on to a new town every few turns.
+         * @param gold The gold the hunter is kept close to.
+         */
+        Soak(boolean travel, int gold) {
+            this.gold = gold;
+            game = new TreasureHunter(NullOutput.INSTANCE, new SoakPolicy(travel), new SplittableRandom(42));
+            game.setDifficulty(new Difficulty("Soak", gold, 0.5, 0.5, 0, false));
+            game.start();
+            // everything but the katana, so every terrain can be crossed and the shopkeeper still charges
+            for (Item item : Item.values()) {
+                if (item != Item.KATANA)
+                    game.getHunter().addItemToKit(item);
+            }
+        }
+
+        /**
+         * Plays one turn.
+         *
+         * @return The hunter's gold, for the caller to consume.
+         */
+        int playTurn() {
+            game.playTurn();
+            // brawls walk the gold around; keep it within a thousand of where it started
+            int current = game.getHunter().getGold();
+            if (current < gold - 1000 || current > gold + 1000)
+                game.getHunter().changeGold(gold - current);
+            return current;
+        }
+    }
+
+    /**
+     * Warms a soak up and measures it.
+     *
+     * @return The bytes allocated per turn.
+     */
+    private static double bytesPerTurn(Soak soak) {
+        long sum = 0;
+        for (int turn = 0; turn < WARMUP_TURNS; turn++)
+            sum += soak.playTurn();
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        for (int turn = 0; turn < TURNS; turn++)
+            sum += soak.playTurn();
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - before;
+        if (sum == 42)
+            System.out.println();
+        return (double) allocated / TURNS;
+    }
+
+    /**
+     * Runs the check.
+     */
+    public static void main(String[] args) {
+        double staying = bytesPerTurn(new Soak(false, 2000));
+        double travelling = bytesPerTurn(new Soak(true, 2000));
+        double rich = bytesPerTurn(new Soak(false, RICH_GOLD));
+        System.out.printf("staying in town       %8.1f B/turn%s%n", staying,
+                staying > ALLOCATION_NOISE ? "  ALLOCATES" : "");
+        System.out.printf("moving on             %8.1f B/turn (a new town every %d turns, not checked)%n",
+                travelling, SoakPolicy.TRAVELLING.length);
+        System.out.printf("%,d gold       %8.1f B/turn (beyond GoldLabels, not checked)%n", RICH_GOLD, rich);
+        if (staying > ALLOCATION_NOISE)
+            System.exit(1);
+    }
+}
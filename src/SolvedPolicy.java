@@ -0,0 +1,75 @@
+/**
+ * The SolvedPolicy plays the best move worked out by a GameSolver in every state.
+ */
+
+public class SolvedPolicy implements DecisionPolicy {
+    private static final Item[] ITEMS = Item.values();
+
+    // instance variables
+    private final GameSolver solver;
+    private final String difficulty;
+    private final int maxTurns;
+
+    private Town town;
+    private String pendingItem;
+    private int turns;
+
+    /**
+     * @param solver A solved game.
+     * @param difficulty The answer given at the difficulty prompt, which must match the solver's difficulty.
+     * @param maxTurns The number of menu choices after which the policy gives up and exits.
+     */
+    public SolvedPolicy(GameSolver solver, String difficulty, int maxTurns) {
+        this.solver = solver;
+        this.difficulty = difficulty;
+        this.maxTurns = maxTurns;
+    }
+
+    @Override
+    public void enteredTown(Town town) {
+        this.town = town;
+    }
+
+    @Override
+    public String nextLine(Prompt prompt, Hunter hunter) {
+        return switch (prompt) {
+            case NAME -> "solver";
+            case DIFFICULTY -> difficulty;
+            case MENU -> chooseMove(hunter);
+            case BUY_ITEM, SELL_ITEM -> pendingItem == null ? "" : pendingItem;
+            case BUY_CONFIRM, SELL_CONFIRM -> "y";
+            case DESTINATION -> "";
+        };
+    }
+
+    /**
+     * Picks the next menu option.
+     *
+     * @param hunter The hunter being played.
+     * @return The menu option.
+     */
+    private String chooseMove(Hunter hunter) {
+        pendingItem = null;
+        turns++;
+        if (turns > maxTurns)
+            return "x";
+
+        int action = solver.getBestAction(solver.getModel().state(hunter, town));
+        if (action < 0)
+            return "x";
+        if (action < GameModel.SELL) {
+            pendingItem = ITEMS[action].getName();
+            return "b";
+        }
+        if (action < GameModel.MOVE) {
+            pendingItem = ITEMS[action - GameModel.SELL].getName();
+            return "s";
+        }
+        return switch (action) {
+            case GameModel.MOVE -> "m";
+            case GameModel.TROUBLE -> "l";
+            case GameModel.HUNT -> "h";
+            default -> "d";
+        };
+    }
+}
@@ -0,0 +1,49 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * The StreamOutput writes the game as plain text to a character stream, such as a network connection.<p>
+ * Colors are dropped. A turn's text is buffered and written in one piece when the turn is flushed,
+ * and clearing the screen simply discards whatever has not been written yet.
+ */
+
+public class StreamOutput implements OutputSink {
+    // instance variables
+    private final Writer out;
+    private final StringBuilder turn;
+
+    /**
+     * @param out The stream the game is written to.
+     */
+    public StreamOutput(Writer out) {
+        this.out = out;
+        turn = new StringBuilder();
+    }
+
+    @Override
+    public void addTextToWindow(String text, TextColor color) {
+        turn.append(text);
+    }
+
+    @Override
+    public void clear() {
+        turn.setLength(0);
+    }
+
+    @Override
+    public void flush() {
+        try {
+            if (!turn.isEmpty()) {
+                out.append(turn);
+                if (turn.charAt(turn.length() - 1) != '\n')
+                    out.write('\n');
+                turn.setLength(0);
+            }
+            out.flush();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
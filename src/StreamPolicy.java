@@ -0,0 +1,42 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The StreamPolicy reads the player's answers from a line-based connection.<p>
+ * Before each read it writes a prompt line of the form <code>?PROMPT</code>, e.g. <code>?MENU</code>,
+ * so a client program knows the turn is over and what it is being asked.
+ * If the connection is closed the player is treated as having given up.
+ */
+
+public class StreamPolicy implements DecisionPolicy {
+    // instance variables
+    private final BufferedReader in;
+    private final Writer out;
+
+    /**
+     * @param in Where the player's answers are read from.
+     * @param out Where prompt lines are written; normally the same stream the game's StreamOutput writes to.
+     */
+    public StreamPolicy(BufferedReader in, Writer out) {
+        this.in = in;
+        this.out = out;
+    }
+
+    @Override
+    public String nextLine(Prompt prompt, Hunter hunter) {
+        try {
+            out.write('?');
+            out.write(prompt.name());
+            out.write('\n');
+            out.flush();
+            String line = in.readLine();
+            if (line != null)
+                return line;
+        }
+        catch (IOException e) {
+            // a broken connection is handled the same way as a closed one
+        }
+        return prompt == Prompt.MENU ? "x" : "";
+    }
+}
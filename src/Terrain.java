@@ -1,47 +1,71 @@
-import java.awt.*;
-
 /**
  * The Terrain class is designed to represent the zones between the towns in the Treasure Hunter game.
  * This code has been adapted from Ivan Turner's original program -- thank you, Mr. Turner!
  */
 
 public class Terrain {
-    private static OutputWindow WINDOW;
+    /**
+     * The number of different kinds of terrain.
+     */
+    public static final int KINDS = 6;
+
+    // one shared instance per kind, indexed by kind
+    private static final Terrain[] TERRAINS = {
+            new Terrain(0, "Mountains", Item.ROPE, null),
+            new Terrain(1, "Ocean", Item.BOAT, null),
+            new Terrain(2, "Plains", Item.HORSE, null),
+            new Terrain(3, "Desert", Item.WATER, null),
+            new Terrain(4, "Marsh", Item.BOOTS, null),
+            new Terrain(5, "Jungle", Item.MACHETE, Item.KATANA)
+    };
 
     // instance variables
-    private String terrainName;
-    private String neededItem;
-    private String secondaryItem;
+    private final int kind;
+    private final String terrainName;
+    private final Item neededItem;
+    private final Item secondaryItem;
 
     /**
      * Sets the class member variables
      *
+     * @param kind Which of the kinds of terrain this is, from 0 to KINDS - 1.
      * @param name The name of the zone.
      * @param item The item needed in order to cross the zone.
+     * @param altItem Another item that also crosses the zone, or null.
      */
-    public Terrain(String name, String item, OutputWindow window) {
+    private Terrain(int kind, String name, Item item, Item altItem) {
+        this.kind = kind;
         terrainName = name;
-        neededItem = item.toLowerCase();
-        secondaryItem = null;
-        WINDOW = window;
+        neededItem = item;
+        secondaryItem = altItem;
     }
-    public Terrain(String name, String item, String altItem, OutputWindow window) {
-        terrainName = name;
-        neededItem = item.toLowerCase();
-        secondaryItem = altItem.toLowerCase();
-        WINDOW = window;
+
+    /**
+     * Looks up one of the kinds of terrain. Terrains are immutable, so every town of a kind shares the same instance.
+     *
+     * @param kind Which kind of terrain, from 0 to KINDS - 1.
+     * @return A Terrain object.
+     */
+    public static Terrain of(int kind) {
+        if (kind < 0 || kind >= KINDS)
+            throw new IllegalArgumentException("No such terrain: " + kind);
+        return TERRAINS[kind];
     }
 
     // accessors
+    public int getKind() {
+        return kind;
+    }
+
     public String getTerrainName() {
         return terrainName;
     }
 
-    public String getNeededItem() {
+    public Item getNeededItem() {
         return neededItem;
     }
 
-    public String getSecondaryItem() {
+    public Item getSecondaryItem() {
         return secondaryItem;
     }
 
@@ -57,13 +81,15 @@ public class Terrain {
     }
 
     /**
-     * @return A string representation of the terrain and item to cross it.
+     * Shows the terrain and the item needed to cross it.
+     *
+     * @param window Where to show it.
      */
-    public void infoString() {
-        WINDOW.addTextToWindow("You are surrounded by ", Color.white);
-        WINDOW.addTextToWindow(terrainName, Color.cyan);
-        WINDOW.addTextToWindow(" which needs (a) ", Color.white);
-        WINDOW.addTextToWindow(neededItem, Color.pink);
-        WINDOW.addTextToWindow(" to cross.\n", Color.white);
+    public void infoString(OutputSink window) {
+        window.addTextToWindow("You are surrounded by ", TextColor.WHITE);
+        window.addTextToWindow(terrainName, TextColor.CYAN);
+        window.addTextToWindow(" which needs (a) ", TextColor.WHITE);
+        window.addTextToWindow(neededItem.getName(), neededItem.getColor());
+        window.addTextToWindow(" to cross.\n", TextColor.WHITE);
     }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+/**
+ * The TextColor enum is the palette the game's text is shown in.<p>
+ * The colors are the java.awt.Color constants the game was written with, but naming them here instead keeps
+ * AWT from loading at all unless a Swing window is actually opened. Each color knows its RGB value, for a window,
+ * and the nearest ANSI escape sequence, for a terminal.
+ */
+
+public enum TextColor {
+    WHITE(0xFFFFFF, "\u001b[97m"),
+    ORANGE(0xFFC800, "\u001b[38;5;220m"),
+    PINK(0xFFAFAF, "\u001b[38;5;217m"),
+    CYAN(0x00FFFF, "\u001b[96m"),
+    BLUE(0x0000FF, "\u001b[94m"),
+    RED(0xFF0000, "\u001b[91m"),
+    GREEN(0x00FF00, "\u001b[92m");
+
+    // instance variables
+    private final int rgb;
+    private final String ansi;
+
+    TextColor(int rgb, String ansi) {
+        this.rgb = rgb;
+        this.ansi = ansi;
+    }
+
+    /**
+     * @return The color as an opaque ARGB value, the same as java.awt.Color's getRGB().
+     */
+    public int getRGB() {
+        return 0xFF000000 | rgb;
+    }
+
+    /**
+     * @return The escape sequence that switches a terminal to this color.
+     */
+    public String getAnsi() {
+        return ansi;
+    }
+}
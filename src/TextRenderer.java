@@ -0,0 +1,160 @@
+/**
+ * The TextRenderer writes what happens in Town and Shop to an OutputSink, in the shopkeepers' and townsfolk's words.
+ * It is the only place that text lives, so the game logic only has to publish GameEvents.
+ */
+
+public class TextRenderer implements EventSubscriber {
+    // instance variables
+    private final OutputSink window;
+
+    /**
+     * @param window Where the text is written.
+     */
+    public TextRenderer(OutputSink window) {
+        this.window = window;
+    }
+
+    @Override
+    public void onEvent(GameEvent event) {
+        switch (event) {
+            case GameEvent.TownEntered e -> {
+                window.addTextToWindow("Welcome to town, " + e.hunterName() + ".", TextColor.WHITE);
+                if (e.toughTown())
+                    window.addTextToWindow("\nIt's pretty rough around here, so watch yourself.", TextColor.WHITE);
+                else
+                    window.addTextToWindow("\nWe're just a sleepy little town with mild mannered folk.", TextColor.WHITE);
+            }
+            case GameEvent.TerrainCrossed e -> terrainCrossed(e);
+            case GameEvent.LeaveRefused e -> {
+                window.addTextToWindow("You can't leave town, " + e.hunterName() + ".", TextColor.WHITE);
+                Item needed = e.needed();
+                if (needed == Item.BOOTS || needed == Item.WATER)
+                    window.addTextToWindow(" You don't have ", TextColor.WHITE);
+                else
+                    window.addTextToWindow(" You don't have a ", TextColor.WHITE);
+                window.addTextToWindow(needed.getName(), needed.getColor());
+                window.addTextToWindow(".\n", TextColor.WHITE);
+            }
+            case GameEvent.NoTrouble e -> window.addTextToWindow("You couldn't find any trouble\n", TextColor.WHITE);
+            case GameEvent.BrawlWon e -> {
+                if (e.katana()) {
+                    window.addTextToWindow("You want trouble, stranger?! You g-\n", TextColor.WHITE);
+                    window.addTextToWindow("Oh my god that's a ", TextColor.BLUE);
+                    window.addTextToWindow("katana", TextColor.RED);
+                    window.addTextToWindow(". Yeah nope I'm out. I am NOT fighting a samurai. Just take my gold man.\n", TextColor.BLUE);
+                    window.addTextToWindow("That was... interesting. Well, at least you got ", TextColor.WHITE);
+                }
+                else {
+                    window.addTextToWindow("You want trouble, stranger?! You got it!\nOof! Umph! Ow!\n", TextColor.RED);
+                    window.addTextToWindow("Okay, stranger! You proved yer mettle. Here, take my gold.\n", TextColor.BLUE);
+                    window.addTextToWindow("You won the brawl and received ", TextColor.WHITE);
+                }
+                window.addTextToWindow(GoldLabels.of(e.gold()), TextColor.ORANGE);
+                window.addTextToWindow(".\n", TextColor.WHITE);
+            }
+            case GameEvent.BrawlLost e -> {
+                window.addTextToWindow("You want trouble, stranger?! You got it!\nOof! Umph! Ow!\n", TextColor.RED);
+                window.addTextToWindow("That'll teach you to go lookin' fer trouble in MY town! Now pay up!\n", TextColor.RED);
+                window.addTextToWindow("You lost the brawl and pay ", TextColor.WHITE);
+                window.addTextToWindow(GoldLabels.of(e.gold()), TextColor.ORANGE);
+                window.addTextToWindow(".\n", TextColor.WHITE);
+            }
+            case GameEvent.TreasureFound e -> {
+                if (e.treasure() == Treasure.DUST)
+                    window.addTextToWindow("All you could find was dust.\n", TextColor.WHITE);
+                else {
+                    window.addTextToWindow("You found ", TextColor.WHITE);
+                    window.addTextToWindow(e.treasure().getName(), TextColor.BLUE);
+                    window.addTextToWindow("!\n", TextColor.WHITE);
+                    if (e.kept())
+                        window.addTextToWindow("You add it to your collection.\n", TextColor.WHITE);
+                    else
+                        window.addTextToWindow("It seems you already have that treasure. You decide to leave this one here for the next adventurer.\n", TextColor.WHITE);
+                }
+            }
+            case GameEvent.AlreadySearched e -> window.addTextToWindow("You have already searched this town!\n", TextColor.WHITE);
+            case GameEvent.Dug e -> {
+                if (e.gold() == 0)
+                    window.addTextToWindow("You dug but only found dirt.\n", TextColor.WHITE);
+                else {
+                    window.addTextToWindow("You dug up ", TextColor.WHITE);
+                    window.addTextToWindow(GoldLabels.of(e.gold()), TextColor.ORANGE);
+                    window.addTextToWindow("!\n", TextColor.WHITE);
+                }
+            }
+            case GameEvent.AlreadyDug e -> {
+                if (e.byOther())
+                    window.addTextToWindow("Somebody else dug up this town before you.\n", TextColor.WHITE);
+                else
+                    window.addTextToWindow("You already dug for gold in this town.\n", TextColor.WHITE);
+            }
+            case GameEvent.NoShovel e -> {
+                window.addTextToWindow("You can't dig for gold without a ", TextColor.WHITE);
+                window.addTextToWindow("shovel", TextColor.PINK);
+                window.addTextToWindow(".\n", TextColor.WHITE);
+            }
+            case GameEvent.ItemBought e -> {
+                window.addTextToWindow("Ye' got yerself a ", TextColor.WHITE);
+                window.addTextToWindow(e.item().getName(), TextColor.PINK);
+                window.addTextToWindow(". Come again soon.\n", TextColor.WHITE);
+            }
+            case GameEvent.KatanaDiscount e -> {
+                if (e.couldAfford()) {
+                    window.addTextToWindow("Nice ", TextColor.WHITE);
+                    window.addTextToWindow("katana", TextColor.RED);
+                    window.addTextToWindow(" you have there sir... Just this once I can give you the ", TextColor.WHITE);
+                    window.addTextToWindow(e.item().getName(), TextColor.PINK);
+                    window.addTextToWindow(" for free. Just don't start swinging...\n", TextColor.WHITE);
+                }
+                else {
+                    window.addTextToWindow("It seems you don't have enough gold for that. B-but your ", TextColor.WHITE);
+                    window.addTextToWindow("katana", TextColor.RED);
+                    window.addTextToWindow(" looks mighty frightening, just take the ", TextColor.WHITE);
+                    window.addTextToWindow(e.item().getName(), TextColor.PINK);
+                    window.addTextToWindow(" and don't hurt me!\n", TextColor.WHITE);
+                }
+            }
+            case GameEvent.PurchaseRefused e -> {
+                if (e.alreadyOwned()) {
+                    window.addTextToWindow("It seems you already have a ", TextColor.WHITE);
+                    window.addTextToWindow(e.item(), TextColor.PINK);
+                    window.addTextToWindow(".\n", TextColor.WHITE);
+                }
+                else
+                    window.addTextToWindow("I'm afraid you don't have enough gold, come back when you're a little, mmmm richer.\n", TextColor.WHITE);
+            }
+            case GameEvent.ItemSold e -> window.addTextToWindow("Pleasure doin' business with you.\n", TextColor.WHITE);
+            case GameEvent.SaleRefused e -> window.addTextToWindow("Stop stringin' me along!\n", TextColor.WHITE);
+            case GameEvent.TurnPlayed e -> { }
+            case GameEvent.GameStarted e -> { }
+            case GameEvent.TownCreated e -> { }
+            case GameEvent.TownRevisited e -> { }
+        }
+    }
+
+    private void terrainCrossed(GameEvent.TerrainCrossed e) {
+        Terrain terrain = e.terrain();
+        if (e.sliced()) {
+            window.addTextToWindow("You expertly slice your way through the dense bamboo of the ", TextColor.WHITE);
+            window.addTextToWindow(terrain.getTerrainName(), TextColor.CYAN);
+            window.addTextToWindow(" with your ", TextColor.WHITE);
+            window.addTextToWindow("katana", TextColor.RED);
+            window.addTextToWindow(".\n", TextColor.WHITE);
+            return;
+        }
+        Item item = e.item();
+        window.addTextToWindow("You used your ", TextColor.WHITE);
+        window.addTextToWindow(item.getName(), item.getColor());
+        window.addTextToWindow(" to cross the ", TextColor.WHITE);
+        window.addTextToWindow(terrain.getTerrainName(), TextColor.CYAN);
+        window.addTextToWindow(".\n", TextColor.WHITE);
+        if (e.broke()) {
+            window.addTextToWindow("Unfortunately, you lose your ", TextColor.WHITE);
+            window.addTextToWindow(item.getName(), item.getColor());
+            window.addTextToWindow(" when travelling the ", TextColor.WHITE);
+            window.addTextToWindow(terrain.getTerrainName(), TextColor.CYAN);
+            window.addTextToWindow(".\n", TextColor.WHITE);
+        }
+        window.addTextToWindow("\n", TextColor.WHITE);
+    }
+}
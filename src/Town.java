@@ -1,16 +1,44 @@
-import java.awt.*;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
 
 /**
  * The Town Class is where it all happens.
  * The Town is designed to manage all the things a Hunter can do in town.
- * This code has been adapted from Ivan Turner's original program -- thank you, Mr. Turner!
+ * This code has been adapted from Ivan Turner's original program -- thank you, Mr. Turner!<p>
+ * Several hunters can be in a town at once, each acting from their own thread. Every action is told which Player
+ * is acting, the treasure and the gold in the ground are claimed with an atomic compare-and-set so only one hunter
+ * ever gets them, and the hunters present are kept in an array that is replaced, never changed, on every arrival
+ * and departure.<p>
+ * What happens in town is published to the acting player's EventBus as GameEvents; the town writes no text itself.
  */
 
 public class Town {
-    private static OutputWindow WINDOW;
+    // claims
+    private static final int SEARCHED = 1;
+    private static final int DUG = 1 << 1;
+
+    private static final Treasure[] TREASURES = Treasure.values();
+    private static final Hunter[] NO_HUNTERS = new Hunter[0];
+    private static final VarHandle CLAIMS;
+    private static final VarHandle HUNTERS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            CLAIMS = lookup.findVarHandle(Town.class, "claims", int.class);
+            HUNTERS = lookup.findVarHandle(Town.class, "hunters", Hunter[].class);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     // instance variables
-    private Hunter hunter;
+    private volatile int claims;
+    private volatile Hunter[] hunters = NO_HUNTERS;
 
     private Shop shop;
 
@@ -19,263 +47,319 @@ public class Town {
     private String printMessage;
 
     private boolean toughTown;
-    private double toughness;
-
-    private boolean dug;
+    private Difficulty difficulty;
 
-    private double breakChance;
-
-    private boolean alreadySearched;
-    private String treasure;
-    private double randomTreasure;
+    private Treasure treasure;
 
     /**
-     * The Town Constructor takes in a shop and the surrounding terrain, but leaves the hunter as null until one arrives.
+     * The Town Constructor takes in a shop and rolls the town's treasure, toughness and terrain. No hunters are in it until one arrives.
      *
      * @param shop The town's shoppe.
-     * @param toughness The surrounding terrain.
+     * @param difficulty The difficulty, whose toughness, break chance and weights the town is rolled with.
+     * @param rng The source of random numbers the town is rolled with.
+     * @param events Where the new town is announced.
      */
-    public Town(Shop shop, double toughness, double breakChance, OutputWindow window) {
+    public Town(Shop shop, Difficulty difficulty, RandomGenerator rng, EventBus events) {
         this.shop = shop;
+        this.difficulty = difficulty;
+
+        treasure = TREASURES[difficulty.getTreasures().sample(rng)];
 
-        randomTreasure = Math.random();
-        if (randomTreasure < .25)
-            treasure = "a crown";
-        else if (randomTreasure < .5)
-            treasure = "a gem";
-        else if (randomTreasure < .75)
-            treasure = "a trophy";
-        else
-            treasure = "dust";
-
-        // the hunter gets set using the hunterArrives method, which
+        // hunters are added using the hunterArrives method, which
         // gets called from a client class
-        hunter = null;
         printMessage = "";
 
         // higher toughness = more likely to be a tough town
-        toughTown = Math.random() < toughness;
-        this.toughness = toughness;
+        toughTown = rng.nextDouble() < difficulty.getToughness();
 
-        this.breakChance = breakChance;
+        this.terrain = getNewTerrain(rng);
 
-        alreadySearched = false;
-        dug = false;
-
-        WINDOW = window;
+        if (events.isActive())
+            events.publish(new GameEvent.TownCreated(treasure, terrain, toughTown));
+    }
 
-        this.terrain = getNewTerrain();
+    /**
+     * Rebuilds a town whose random rolls are already known, such as one replayed from a journal.
+     *
+     * @param shop The town's shoppe.
+     * @param difficulty The difficulty, whose toughness and break chance the town's rolls use.
+     * @param treasure The treasure hidden in the town.
+     * @param terrain The surrounding terrain.
+     * @param toughTown Whether the town is a tough town.
+     */
+    public Town(Shop shop, Difficulty difficulty, Treasure treasure, Terrain terrain, boolean toughTown) {
+        this.shop = shop;
+        this.difficulty = difficulty;
+        this.treasure = treasure;
+        printMessage = "";
+        this.toughTown = toughTown;
+        this.terrain = terrain;
     }
 
     public Terrain getTerrain() {
         return terrain;
     }
 
+    public Shop getShop() {
+        return shop;
+    }
+
+    public Treasure getTreasure() {
+        return treasure;
+    }
+
+    public boolean isToughTown() {
+        return toughTown;
+    }
+
+    public boolean isAlreadySearched() {
+        return (claims & SEARCHED) != 0;
+    }
+
+    public boolean isDug() {
+        return (claims & DUG) != 0;
+    }
+
+    /**
+     * @return The hunters in town right now.
+     */
+    public List<Hunter> getHunters() {
+        return List.of(hunters);
+    }
+
+    /**
+     * Sets whether the town has been searched and dug, for towns being rebuilt from a record of the game.
+     *
+     * @param alreadySearched Whether the town has been searched for treasure.
+     * @param dug Whether the town has been dug for gold.
+     */
+    public void restoreProgress(boolean alreadySearched, boolean dug) {
+        claims = (alreadySearched ? SEARCHED : 0) | (dug ? DUG : 0);
+    }
+
     public String getLatestNews() {
         return printMessage;
     }
 
     /**
-     * Assigns an object to the Hunter in town.
+     * Adds a Hunter to the town.
      *
-     * @param hunter The arriving Hunter.
+     * @param player The arriving player.
      */
-    public void hunterArrives(Hunter hunter) {
-        this.hunter = hunter;
-        WINDOW.addTextToWindow("Welcome to town, " + hunter.getHunterName() + ".", Color.white);
-        if (toughTown)
-            WINDOW.addTextToWindow("\nIt's pretty rough around here, so watch yourself.", Color.white);
-        else
-            WINDOW.addTextToWindow("\nWe're just a sleepy little town with mild mannered folk.", Color.white);
+    public void hunterArrives(Player player) {
+        Hunter hunter = player.hunter();
+        Hunter[] present;
+        Hunter[] arrived;
+        do {
+            present = hunters;
+            arrived = Arrays.copyOf(present, present.length + 1);
+            arrived[present.length] = hunter;
+        } while (!HUNTERS.compareAndSet(this, present, arrived));
+        EventBus events = player.events();
+        if (events.isActive())
+            events.publish(new GameEvent.TownEntered(hunter.getHunterName(), toughTown));
     }
 
     /**
      * Handles the action of the Hunter leaving the town.
      *
+     * @param player The player leaving.
      * @return true if the Hunter was able to leave town.
      */
-    public boolean leaveTown() {
+    public boolean leaveTown(Player player) {
+        Hunter hunter = player.hunter();
+        EventBus events = player.events();
         boolean canLeaveTown = terrain.canCrossTerrain(hunter);
         if (canLeaveTown) {
-            String item = terrain.getNeededItem();
-            String altItem = terrain.getSecondaryItem();
-            if (altItem != null && altItem.equals("katana") && hunter.hasItemInKit("katana")) {
-                WINDOW.addTextToWindow("You expertly slice your way through the dense bamboo of the ", Color.white);
-                WINDOW.addTextToWindow(terrain.getTerrainName(), Color.cyan);
-                WINDOW.addTextToWindow(" with your ", Color.white);
-                WINDOW.addTextToWindow("katana", Color.red);
-                WINDOW.addTextToWindow(".\n", Color.white);
+            hunterLeaves(hunter);
+            Item item = terrain.getNeededItem();
+            Item altItem = terrain.getSecondaryItem();
+            if (altItem == Item.KATANA && hunter.hasItemInKit(Item.KATANA)) {
+                if (events.isActive())
+                    events.publish(new GameEvent.TerrainCrossed(terrain, Item.KATANA, true, false));
                 return true;
             }
-            WINDOW.addTextToWindow("You used your ", Color.white);
-            WINDOW.addTextToWindow(item, Color.pink);
-            WINDOW.addTextToWindow(" to cross the ", Color.white);
-            WINDOW.addTextToWindow(terrain.getTerrainName(), Color.cyan);
-            WINDOW.addTextToWindow(".\n", Color.white);
-            if (checkItemBreak()) {
+            boolean broke = checkItemBreak(player.rng());
+            if (broke)
                 hunter.removeItemFromKit(item);
-                WINDOW.addTextToWindow("Unfortunately, you lose your ", Color.white);
-                WINDOW.addTextToWindow(item, Color.pink);
-                WINDOW.addTextToWindow(" when travelling the ", Color.white);
-                WINDOW.addTextToWindow(terrain.getTerrainName(), Color.cyan);
-                WINDOW.addTextToWindow(".\n", Color.white);
-            }
-            WINDOW.addTextToWindow("\n", Color.white);
+            if (events.isActive())
+                events.publish(new GameEvent.TerrainCrossed(terrain, item, false, broke));
             return true;
         }
 
-        WINDOW.addTextToWindow("You can't leave town, " + hunter.getHunterName() + ".", Color.white);
-        if (terrain.getNeededItem().equals("boots") || terrain.getNeededItem().equals("water"))
-            WINDOW.addTextToWindow(" You don't have ", Color.white);
-        else
-            WINDOW.addTextToWindow(" You don't have a ", Color.white);
-        WINDOW.addTextToWindow(terrain.getNeededItem(), Color.pink);
-        WINDOW.addTextToWindow(".\n", Color.white);
+        if (events.isActive())
+            events.publish(new GameEvent.LeaveRefused(hunter.getHunterName(), terrain.getNeededItem()));
         return false;
     }
 
+    /**
+     * Takes a Hunter out of the town's hunters.
+     *
+     * @param hunter The departing Hunter.
+     */
+    private void hunterLeaves(Hunter hunter) {
+        Hunter[] present;
+        Hunter[] left;
+        do {
+            present = hunters;
+            int index = Arrays.asList(present).indexOf(hunter);
+            if (index < 0)
+                return;
+            if (present.length == 1)
+                left = NO_HUNTERS;
+            else {
+                left = new Hunter[present.length - 1];
+                System.arraycopy(present, 0, left, 0, index);
+                System.arraycopy(present, index + 1, left, index, left.length - index);
+            }
+        } while (!HUNTERS.compareAndSet(this, present, left));
+    }
+
     /**
      * Handles calling the enter method on shop whenever the user wants to access the shop.
      *
+     * @param player The player entering the shop.
      * @param choice If the user wants to buy or sell items at the shop.
      */
-    public void enterShop(String choice) {
-        shop.enter(hunter, choice);
+    public void enterShop(Player player, String choice) {
+        shop.enter(player, choice);
+    }
+
+    /**
+     * Claims the town's treasure or its gold for one hunter.
+     *
+     * @param claim SEARCHED or DUG.
+     * @return true if nobody had claimed it before.
+     */
+    private boolean claim(int claim) {
+        int current;
+        do {
+            current = claims;
+            if ((current & claim) != 0)
+                return false;
+        } while (!CLAIMS.compareAndSet(this, current, current | claim));
+        return true;
     }
 
     /**
      * Gives the hunter a chance to fight for some gold.<p>
      * The chances of finding a fight and winning the gold are based on the toughness of the town.<p>
      * The tougher the town, the easier it is to find a fight, and the harder it is to win one.
+     *
+     * @param player The player looking for trouble.
      */
-    public void lookForTrouble() {
+    public void lookForTrouble(Player player) {
+        Hunter hunter = player.hunter();
+        RandomGenerator rng = player.rng();
+        EventBus events = player.events();
         double noTroubleChance;
         double fightDifficulty;
         if (toughTown) {
             noTroubleChance = 0.4;
-            fightDifficulty = toughness;
+            fightDifficulty = difficulty.getToughness();
         } else {
             noTroubleChance = 0.7;
-            fightDifficulty = 0.8 * toughness;
+            fightDifficulty = 0.8 * difficulty.getToughness();
+        }
+        if (rng.nextDouble() < noTroubleChance) {
+            if (events.isActive())
+                events.publish(new GameEvent.NoTrouble());
         }
-        if (Math.random() < noTroubleChance)
-            WINDOW.addTextToWindow("You couldn't find any trouble\n", Color.white);
         else {
-            int goldDiff = (int) (Math.random() * 10) + 1;
-            if (hunter.hasItemInKit("katana")) {
-                WINDOW.addTextToWindow("You want trouble, stranger?! You g-\n", Color.white);
-                WINDOW.addTextToWindow("Oh my god that's a ", Color.blue);
-                WINDOW.addTextToWindow("katana", Color.red);
-                WINDOW.addTextToWindow(". Yeah nope I'm out. I am NOT fighting a samurai. Just take my gold man.\n", Color.BLUE);
-                WINDOW.addTextToWindow("That was... interesting. Well, at least you got ", Color.white);
-                WINDOW.addTextToWindow(goldDiff + " gold", Color.orange);
-                WINDOW.addTextToWindow(".\n", Color.white);
+            int goldDiff = difficulty.getBrawlGold().sample(rng) + 1;
+            boolean katana = hunter.hasItemInKit(Item.KATANA);
+            if (katana || rng.nextDouble() > fightDifficulty) {
                 hunter.changeGold(goldDiff);
-            }
-            else {
-                WINDOW.addTextToWindow("You want trouble, stranger?! You got it!\nOof! Umph! Ow!\n", Color.red);
-                if (Math.random() > fightDifficulty) {
-                    WINDOW.addTextToWindow("Okay, stranger! You proved yer mettle. Here, take my gold.\n", Color.blue);
-                    WINDOW.addTextToWindow("You won the brawl and received ", Color.white);
-                    WINDOW.addTextToWindow(goldDiff + " gold", Color.orange);
-                    WINDOW.addTextToWindow(".\n", Color.white);
-                    hunter.changeGold(goldDiff);
-                } else {
-                    WINDOW.addTextToWindow("That'll teach you to go lookin' fer trouble in MY town! Now pay up!\n", Color.red);
-                    WINDOW.addTextToWindow("You lost the brawl and pay ", Color.white);
-                    WINDOW.addTextToWindow(goldDiff + " gold", Color.orange);
-                    WINDOW.addTextToWindow(".\n", Color.white);
-                    hunter.changeGold(-goldDiff);
-                }
+                if (events.isActive())
+                    events.publish(new GameEvent.BrawlWon(goldDiff, katana));
+            } else {
+                hunter.changeGold(-goldDiff);
+                if (events.isActive())
+                    events.publish(new GameEvent.BrawlLost(goldDiff));
             }
         }
     }
 
-    public void huntForTreasure() {
-        if (!alreadySearched) {
-            if (!treasure.equals("dust")) {
-                WINDOW.addTextToWindow("You found ", Color.white);
-                WINDOW.addTextToWindow(treasure, Color.blue);
-                WINDOW.addTextToWindow("!\n", Color.white);
-                if (!hunter.hasItemInTreasureInventory(treasure)) {
-                    hunter.addTreasure(treasure);
-                    WINDOW.addTextToWindow("You add it to your collection.\n", Color.white);
-                }
-                else
-                    WINDOW.addTextToWindow("It seems you already have that treasure. You decide to leave this one here for the next adventurer.\n", Color.white);
+    /**
+     * Searches the town for its treasure. Only the first hunter to search a town finds anything.
+     *
+     * @param player The player searching.
+     */
+    public void huntForTreasure(Player player) {
+        Hunter hunter = player.hunter();
+        EventBus events = player.events();
+        if (claim(SEARCHED)) {
+            boolean kept = false;
+            if (treasure != Treasure.DUST && !hunter.hasItemInTreasureInventory(treasure)) {
+                hunter.addTreasure(treasure);
+                kept = true;
             }
-            else
-                WINDOW.addTextToWindow("All you could find was dust.\n", Color.white);
-            alreadySearched = true;
+            if (events.isActive())
+                events.publish(new GameEvent.TreasureFound(treasure, kept));
         }
-        else
-            WINDOW.addTextToWindow("You have already searched this town!\n", Color.white);
+        else if (events.isActive())
+            events.publish(new GameEvent.AlreadySearched());
     }
 
     /**
      * Lets the hunter dig for gold. <br>
      * If they have a shovel, it's a 50/50 change to find nothing or for 1-20 gold <br>
-     * If they don't a message is shown saying they can't dig
+     * If they don't a message is shown saying they can't dig <br>
+     * Only the first hunter to dig in a town can find anything
+     *
+     * @param player The player digging.
      */
-    public void digForGold() {
-        boolean shovel = hunter.hasItemInKit("shovel");
-        if (dug) {
-            WINDOW.addTextToWindow("You already dug for gold in this town.\n", Color.white);
+    public void digForGold(Player player) {
+        Hunter hunter = player.hunter();
+        RandomGenerator rng = player.rng();
+        EventBus events = player.events();
+        if (isDug()) {
+            if (events.isActive())
+                events.publish(new GameEvent.AlreadyDug(false));
             return;
         }
 
-        if (shovel) {
-            dug = true;
-            if (Math.random() < 0.5)
-                WINDOW.addTextToWindow("You dug but only found dirt.\n", Color.white);
-            else {
-                int goldDug = (int) (Math.random() * 20) + 1;
+        if (hunter.hasItemInKit(Item.SHOVEL)) {
+            if (!claim(DUG)) {
+                if (events.isActive())
+                    events.publish(new GameEvent.AlreadyDug(true));
+                return;
+            }
+            int goldDug = 0;
+            if (rng.nextDouble() >= 0.5) {
+                goldDug = difficulty.getDigGold().sample(rng) + 1;
                 hunter.changeGold(goldDug);
-                WINDOW.addTextToWindow("You dug up ", Color.white);
-                WINDOW.addTextToWindow(goldDug + " gold", Color.orange);
-                WINDOW.addTextToWindow("!\n", Color.white);
             }
+            if (events.isActive())
+                events.publish(new GameEvent.Dug(goldDug));
         }
-        else {
-            WINDOW.addTextToWindow("You can't dig for gold without a ", Color.white);
-            WINDOW.addTextToWindow("shovel", Color.pink);
-            WINDOW.addTextToWindow(".\n", Color.white);
-        }
+        else if (events.isActive())
+            events.publish(new GameEvent.NoShovel());
     }
 
-    public void infoString() {
-        WINDOW.addTextToWindow("This nice little town is surrounded by ", Color.white);
-        WINDOW.addTextToWindow(terrain.getTerrainName(), Color.cyan);
-        WINDOW.addTextToWindow(".\n", Color.white);
+    public void infoString(OutputSink window) {
+        window.addTextToWindow("This nice little town is surrounded by ", TextColor.WHITE);
+        window.addTextToWindow(terrain.getTerrainName(), TextColor.CYAN);
+        window.addTextToWindow(".\n", TextColor.WHITE);
     }
 
     /**
      * Determines the surrounding terrain for a town, and the item needed in order to cross that terrain.
      *
+     * @param rng The source of random numbers the town is rolled with.
      * @return A Terrain object.
      */
-    private Terrain getNewTerrain() {
-        double rnd = Math.random();
-        if (rnd < 1.0/6)
-            return new Terrain("Mountains", "Rope", WINDOW);
-        else if (rnd < 2.0/6)
-            return new Terrain("Ocean", "Boat", WINDOW);
-        else if (rnd < 3.0/6)
-            return new Terrain("Plains", "Horse", WINDOW);
-        else if (rnd < 4.0/6)
-            return new Terrain("Desert", "Water", WINDOW);
-        else if (rnd < 5.0/6)
-            return new Terrain("Marsh", "Boots", WINDOW);
-        else
-            return new Terrain("Jungle", "Machete", "Katana", WINDOW);
+    private Terrain getNewTerrain(RandomGenerator rng) {
+        return Terrain.of(difficulty.getTerrains().sample(rng));
     }
 
     /**
      * Determines whether a used item has broken.
      *
+     * @param rng The source of random numbers for the roll.
      * @return true if the item broke.
      */
-    private boolean checkItemBreak() {
-        return Math.random() < breakChance;
+    private boolean checkItemBreak(RandomGenerator rng) {
+        return rng.nextDouble() < difficulty.getBreakChance();
     }
 }
\ No newline at end of file
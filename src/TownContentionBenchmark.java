@@ -0,0 +1,111 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The TownContentionBenchmark puts many hunters in the same town at once and has them all race to hunt, dig,
+ * look for trouble and leave, one fresh town per round.<p>
+ * Afterwards it checks that every town's treasure and gold went to exactly one hunter, that every hunter left,
+ * and that the hunters' gold adds up to what was dug and won, then reports how many rounds ran per second.<p>
+ * Arguments: [hunters] [rounds]
+ */
+
+public class TownContentionBenchmark {
+    /**
+     * Counts the claims and gold every hunter reports, from any thread.
+     */
+    private static class Tally implements GameObserver {
+        private final LongAdder hunts = new LongAdder();
+        private final LongAdder digs = new LongAdder();
+        private final LongAdder gold = new LongAdder();
+
+        @Override
+        public void brawl(boolean won, int gold) {
+            this.gold.add(won ? gold : -gold);
+        }
+
+        @Override
+        public void treasureHunted(Treasure treasure, boolean kept) {
+            hunts.increment();
+        }
+
+        @Override
+        public void dug(int gold) {
+            digs.increment();
+            this.gold.add(gold);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int hunters = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        // items never break, so every hunter can always leave
+        Difficulty difficulty = new Difficulty("Contention", 0, 0.5, 0.5, 0, false);
+        Shop shop = new Shop(difficulty.getPrices());
+        Treasure[] treasures = Treasure.values();
+        Town[] towns = new Town[rounds];
+        for (int round = 0; round < rounds; round++)
+            towns[round] = new Town(shop, difficulty,
+                    treasures[round % Treasure.COLLECTIBLE_COUNT], Terrain.of(round % Terrain.KINDS), round % 2 == 0);
+
+        Tally tally = new Tally();
+        Player[] players = new Player[hunters];
+        for (int i = 0; i < hunters; i++) {
+            Hunter hunter = new Hunter("hunter " + i, 0, NullOutput.INSTANCE);
+            for (Item item : Item.values()) {
+                if (item != Item.KATANA)
+                    hunter.addItemToKit(item);
+            }
+            EventBus events = new EventBus();
+            events.subscribe(tally);
+            players[i] = new Player(hunter, NullOutput.INSTANCE, null, new SplittableRandom(i), events);
+        }
+
+        CyclicBarrier barrier = new CyclicBarrier(hunters);
+        Thread[] threads = new Thread[hunters];
+        long start = System.nanoTime();
+        for (int i = 0; i < hunters; i++) {
+            Player player = players[i];
+            threads[i] = new Thread(() -> {
+                try {
+                    for (Town town : towns) {
+                        barrier.await(); // everyone arrives in the town together
+                        town.hunterArrives(player);
+                        town.huntForTreasure(player);
+                        town.digForGold(player);
+                        town.lookForTrouble(player);
+                        town.leaveTown(player);
+                    }
+                }
+                catch (InterruptedException | BrokenBarrierException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        for (Player player : players)
+            player.events().awaitDelivery();
+        long elapsed = System.nanoTime() - start;
+
+        int problems = 0;
+        for (Town town : towns) {
+            if (!town.isAlreadySearched() || !town.isDug() || !town.getHunters().isEmpty())
+                problems++;
+        }
+        long gold = 0;
+        for (Player player : players)
+            gold += player.hunter().getGold();
+
+        System.out.printf("%d hunters, %d rounds in %.1f ms: %,.0f rounds/sec, %,.0f town actions/sec%n", hunters, rounds,
+                elapsed / 1e6, rounds * 1e9 / elapsed, 5.0 * hunters * rounds * 1e9 / elapsed);
+        System.out.printf("towns searched %d, towns dug %d (expected %d each), towns not left clean %d, gold %s%n",
+                tally.hunts.sum(), tally.digs.sum(), rounds, problems,
+                gold == tally.gold.sum() ? "balances" : gold + " held vs " + tally.gold.sum() + " earned");
+        if (tally.hunts.sum() != rounds || tally.digs.sum() != rounds || problems != 0 || gold != tally.gold.sum())
+            System.exit(1);
+    }
+}
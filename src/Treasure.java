@@ -0,0 +1,27 @@
+/**
+ * The Treasure enum lists what can be found when hunting for treasure in a town.<p>
+ * Dust is worthless; the hunter wins by collecting every other treasure.
+ */
+
+public enum Treasure {
+    CROWN("a crown"),
+    GEM("a gem"),
+    TROPHY("a trophy"),
+    DUST("dust");
+
+    /**
+     * The number of treasures a hunter has to collect to win (everything but dust).
+     */
+    public static final int COLLECTIBLE_COUNT = values().length - 1;
+
+    // instance variables
+    private final String name;
+
+    Treasure(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -1,5 +1,8 @@
-import java.awt.*;
-import java.util.Scanner;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * This class is responsible for controlling the Treasure Hunter game.<p>
@@ -11,165 +14,428 @@ import java.util.Scanner;
 
 public class TreasureHunter {
     // static variables
-    private static final Scanner SCANNER = new Scanner(System.in);
-    private static final OutputWindow WINDOW = new OutputWindow();
-
-    private static final int STARTING_GOLD = 20;
+    private static final String MENU = "(B)uy something at the shop.\n"
+            + "(S)ell something at the shop.\n"
+            + "(E)xplore surrounding terrain.\n"
+            + "(M)ove on to a different town.\n"
+            + "(L)ook for trouble!\n"
+            + "(H)unt for treasure\n"
+            + "(D)ig for gold\n"
+            + "Give up the hunt and e(X)it.\n"
+            + "\n"
+            + "What's your next move?";
 
     // instance variables
+    private final OutputSink window;
+    private final DecisionPolicy policy;
+    private final RandomGenerator rng;
+    private final EventBus events;
+    private Path saveFile;
+    private Leaderboard leaderboard;
+    private boolean globalMarket;
+
+    private Shop shop;
     private Town currentTown;
+    private World world;
+    private int maxLoadedTowns;
+    private int currentTownId;
     private Hunter hunter;
+    private Player player;
+    private int turns;
 
-    private boolean hardMode;
-    private boolean easyMode;
-    private boolean samurai;
+    private Difficulty difficulty;
+    private Difficulty presetDifficulty;
+    private boolean testMode;
 
     /**
-     * Constructs the Treasure Hunter game.
+     * Constructs the Treasure Hunter game played from the keyboard in a new window.
      */
     public TreasureHunter() {
+        this(new OutputWindow(), new ConsolePolicy(), new SplittableRandom());
+    }
+
+    /**
+     * Constructs the Treasure Hunter game.<p>
+     * Every random roll in the game comes from the given generator, so a game started from a fixed seed
+     * and given the same answers plays out exactly the same way.
+     *
+     * @param window Where the game is displayed.
+     * @param policy Where the player's answers to the game's prompts come from.
+     * @param rng The source of random numbers for this game only.
+     */
+    public TreasureHunter(OutputSink window, DecisionPolicy policy, RandomGenerator rng) {
+        this.window = window;
+        this.policy = policy;
+        this.rng = rng;
+        events = new EventBus();
+        if (window.isRendering())
+            events.addRenderer(new TextRenderer(window));
         // these will be initialized in the play method
         currentTown = null;
         hunter = null;
-        hardMode = false;
+        difficulty = Difficulty.NORMAL;
+    }
+
+    /**
+     * Adds an observer that is told about every change the game makes. Must be called before the game is played.<p>
+     * Observers are told on a dispatcher thread, in batches, and everything has been told by the time the game returns.
+     *
+     * @param observer The observer, e.g. a journal recorder.
+     */
+    public void addObserver(GameObserver observer) {
+        events.subscribe(observer);
+    }
+
+    /**
+     * @return Where everything that happens in the game is published. Subscribe before the game is played.
+     */
+    public EventBus getEvents() {
+        return events;
+    }
+
+    /**
+     * Fixes the difficulty of the game, so the player is not asked for one. Must be called before the game is played.
+     *
+     * @param difficulty The difficulty to play at, or null to ask the player.
+     */
+    public void setDifficulty(Difficulty difficulty) {
+        presetDifficulty = difficulty;
+    }
+
+    /**
+     * Sets where the game is saved when the player exits. A game that is won or lost deletes its save.
+     *
+     * @param saveFile The save file, or null to not save.
+     */
+    public void setSaveFile(Path saveFile) {
+        this.saveFile = saveFile;
+    }
+
+    /**
+     * Sets where won and lost games are ranked. Quitting does not finish a game, so it is not ranked, and neither
+     * is a game played in one of the test modes, which hand out gold and items.
+     *
+     * @param leaderboard The leaderboard, or null to not rank games.
+     */
+    public void setLeaderboard(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    /**
+     * Makes every shop trade at the Market shared by all games of the same difficulty, so prices move with
+     * what every player buys and sells. Must be called before the game is played or resumed.
+     *
+     * @param globalMarket Whether shops use the shared market instead of the difficulty's fixed prices.
+     */
+    public void setGlobalMarket(boolean globalMarket) {
+        this.globalMarket = globalMarket;
+    }
+
+    /**
+     * Plays the game in a persistent world of towns joined by roads, so towns can be revisited and keep
+     * whether they have been searched and dug. Must be called before the game is played or resumed.<p>
+     * A saved game only keeps the town the hunter is in, so a resumed game starts a new world from that town.
+     * The world belongs to this game alone: players in other sessions, even on the same server, never share towns.
+     *
+     * @param maxLoadedTowns The number of recently visited towns kept in memory, or 0 to make a new town on every move.
+     */
+    public void setWorldSize(int maxLoadedTowns) {
+        this.maxLoadedTowns = maxLoadedTowns;
     }
 
     /**
      * Starts the game; this is the only public method
+     *
+     * @return The outcome of the game once the player has won, lost or quit.
+     */
+    public GameResult play() {
+        start();
+        return showMenu();
+    }
+
+    /**
+     * Welcomes the player and puts their hunter in the first town, ready for the first turn.
      */
-    public void play() {
+    void start() {
         welcomePlayer();
+        player = new Player(hunter, window, policy, rng, events);
         enterTown();
-        showMenu();
+    }
+
+    /**
+     * Carries on a game restored by GameSnapshot from the menu.
+     *
+     * @return The outcome of the game once the player has won, lost or quit.
+     */
+    public GameResult resume() {
+        if (globalMarket) {
+            // the town was restored with fixed prices
+            shop = null;
+            currentTown = restoreTown(GameSnapshot.encodeTown(currentTown));
+        }
+        if (maxLoadedTowns > 0) {
+            world = new World(maxLoadedTowns, this::newTown, this::restoreTown);
+            currentTownId = world.start(currentTown);
+        }
+        player = new Player(hunter, window, policy, rng, events);
+        currentTown.hunterArrives(player);
+        policy.enteredTown(currentTown);
+        return showMenu();
+    }
+
+    // accessors used by GameSnapshot
+    Hunter getHunter() {
+        return hunter;
+    }
+
+    Town getCurrentTown() {
+        return currentTown;
+    }
+
+    Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    int getTurns() {
+        return turns;
+    }
+
+    /**
+     * Puts a restored game back into the state it was saved in.
+     */
+    void restoreState(Hunter hunter, Difficulty difficulty, int turns, int townCode) {
+        this.hunter = hunter;
+        this.difficulty = difficulty;
+        this.turns = turns;
+        currentTown = restoreTown(townCode);
     }
 
     /**
      * Creates a hunter object at the beginning of the game and populates the class member variable with it.
      */
     private void welcomePlayer() {
-        WINDOW.addTextToWindow("Welcome to TREASURE HUNTER!\n", Color.white);
-        WINDOW.addTextToWindow("Going hunting for the big treasure, eh?\n", Color.white);
-        WINDOW.addTextToWindow("What's your name, Hunter?\n", Color.white);
-        String name = SCANNER.nextLine().toLowerCase();
+        window.addTextToWindow("Welcome to TREASURE HUNTER!\n", TextColor.WHITE);
+        window.addTextToWindow("Going hunting for the big treasure, eh?\n", TextColor.WHITE);
+        window.addTextToWindow("What's your name, Hunter?\n", TextColor.WHITE);
+        String name = ask(Prompt.NAME);
+
+        if (presetDifficulty != null) {
+            difficulty = presetDifficulty;
+            hunter = new Hunter(name, difficulty.getStartingGold(), window);
+            window.clear();
+            gameStarted();
+            return;
+        }
 
         // set hunter instance variable
-        hunter = new Hunter(name, STARTING_GOLD, false, WINDOW);
+        hunter = new Hunter(name, Difficulty.NORMAL.getStartingGold(), window);
 
-        WINDOW.clear();
-        WINDOW.addTextToWindow("(E)asy\n", Color.white);
-        WINDOW.addTextToWindow("(N)ormal\n", Color.white);
-        WINDOW.addTextToWindow("(H)ard\n", Color.white);
-        WINDOW.addTextToWindow("Choose your difficulty:", Color.white);
+        window.clear();
+        window.addTextToWindow("(E)asy\n", TextColor.WHITE);
+        window.addTextToWindow("(N)ormal\n", TextColor.WHITE);
+        window.addTextToWindow("(H)ard\n", TextColor.WHITE);
+        window.addTextToWindow("Choose your difficulty:", TextColor.WHITE);
 
-        String diff = SCANNER.nextLine().toLowerCase();
-        WINDOW.clear();
+        String diff = ask(Prompt.DIFFICULTY);
+        window.clear();
         switch (diff) {
             case "test" -> {
-                WINDOW.addTextToWindow("Test mode activated.\n", Color.white);
-                hunter = new Hunter(name, 100, false, WINDOW);
-                hunter.buyItem("water", 0);
-                hunter.buyItem("rope", 0);
-                hunter.buyItem("machete", 0);
-                hunter.buyItem("boots", 0);
-                hunter.buyItem("horse", 0);
-                hunter.buyItem("boat", 0);
-                hunter.buyItem("shovel", 0);
+                window.addTextToWindow("Test mode activated.\n", TextColor.WHITE);
+                testMode = true;
+                hunter = new Hunter(name, 100, window);
+                hunter.buyItem(Item.WATER, 0);
+                hunter.buyItem(Item.ROPE, 0);
+                hunter.buyItem(Item.MACHETE, 0);
+                hunter.buyItem(Item.BOOTS, 0);
+                hunter.buyItem(Item.HORSE, 0);
+                hunter.buyItem(Item.BOAT, 0);
+                hunter.buyItem(Item.SHOVEL, 0);
             }
             case ("test lose") -> {
-                WINDOW.addTextToWindow("Test Lose activated.\n", Color.white);
-                hunter = new Hunter(name, 0, false, WINDOW);
-                hardMode = true;
+                window.addTextToWindow("Test Lose activated.\n", TextColor.WHITE);
+                testMode = true;
+                hunter = new Hunter(name, 0, window);
+                difficulty = Difficulty.HARD;
             }
             case "s" -> {
-                WINDOW.addTextToWindow("Hello, Samurai. It is an honor to see you.\n", Color.white);
-                samurai = true;
-                hardMode = true;
-                hunter = new Hunter(name, 20, true, WINDOW);
+                window.addTextToWindow("Hello, Samurai. It is an honor to see you.\n", TextColor.WHITE);
+                difficulty = Difficulty.SAMURAI;
+                hunter = new Hunter(name, difficulty.getStartingGold(), window);
             }
             case "h" -> {
-                WINDOW.addTextToWindow("Hard Mode it is then. Prepare for a challenge.\n", Color.red);
-                hardMode = true;
+                window.addTextToWindow("Hard Mode it is then. Prepare for a challenge.\n", TextColor.RED);
+                difficulty = Difficulty.HARD;
             }
-            case "n" -> WINDOW.addTextToWindow("Normal Mode. Good luck adventurer.\n", Color.orange);
+            case "n" -> window.addTextToWindow("Normal Mode. Good luck adventurer.\n", TextColor.ORANGE);
             case "e" -> {
-                WINDOW.addTextToWindow("Easy Mode. This be your first time?\n", Color.green);
-                hunter = new Hunter(name, STARTING_GOLD * 2, false, WINDOW);
-                easyMode = true;
+                window.addTextToWindow("Easy Mode. This be your first time?\n", TextColor.GREEN);
+                difficulty = Difficulty.EASY;
+                hunter = new Hunter(name, difficulty.getStartingGold(), window);
             }
             default ->
-                    WINDOW.addTextToWindow("Uhhh... I'm just gonna give you Normal Mode...\n", Color.orange);
+                    window.addTextToWindow("Uhhh... I'm just gonna give you Normal Mode...\n", TextColor.ORANGE);
         }
+        gameStarted();
+    }
+
+    private void gameStarted() {
+        if (events.isActive())
+            events.publish(new GameEvent.GameStarted(hunter.getHunterName(), hunter.getGold(), hunter.getKit(), difficulty));
     }
 
     /**
      * Creates a new town and adds the Hunter to it.
      */
     private void enterTown() {
-        double markdown = 0.5;
-        double toughness = 0.4;
-        double breakChance = 0.5;
-        if (hardMode) {
-            markdown = 0.25;
-            toughness = 0.75;
-            breakChance = 0.65;
+        currentTown = newTown();
+        if (maxLoadedTowns > 0) {
+            world = new World(maxLoadedTowns, this::newTown, this::restoreTown);
+            currentTownId = world.start(currentTown);
         }
-        else if (easyMode) {
-            markdown = 1;
-            toughness = 0.2;
-            breakChance = 0;
+
+        currentTown.hunterArrives(player);
+        policy.enteredTown(currentTown);
+    }
+
+    private Town newTown() {
+        return new Town(getShop(), difficulty, rng, events);
+    }
+
+    private Town restoreTown(int townCode) {
+        return GameSnapshot.decodeTown(townCode, getShop(), difficulty);
+    }
+
+    /**
+     * @return The shop every town of this game shares, which is made once the difficulty is known.
+     */
+    private Shop getShop() {
+        if (shop == null)
+            shop = globalMarket ? new Shop(Market.of(difficulty)) : new Shop(difficulty.getPrices());
+        return shop;
+    }
+
+    /**
+     * Asks which road to take out of the current town and follows it if the hunter can cross the terrain.
+     */
+    private void travel() {
+        int unexplored = -1;
+        for (int road = 0; road < World.ROADS; road++) {
+            int id = world.getRoad(currentTownId, road);
+            window.addTextToWindow("(" + (road + 1) + ") ", TextColor.WHITE);
+            if (id < 0) {
+                window.addTextToWindow("An unexplored road\n", TextColor.WHITE);
+                if (unexplored < 0)
+                    unexplored = road;
+            }
+            else {
+                int town = world.peekTown(id);
+                window.addTextToWindow("The town by the ", TextColor.WHITE);
+                window.addTextToWindow(GameSnapshot.terrainOf(town).getTerrainName(), TextColor.CYAN);
+                window.addTextToWindow(GameSnapshot.isSearched(town) ? ", already searched\n" : "\n", TextColor.WHITE);
+            }
         }
+        window.addTextToWindow("Which road will you take?", TextColor.WHITE);
+        String answer = ask(Prompt.DESTINATION);
+        window.clear();
 
-        Shop shop = new Shop(markdown, samurai, WINDOW);
+        int road;
+        if (answer.isEmpty())
+            road = Math.max(unexplored, 0);
+        else if (answer.length() == 1 && answer.charAt(0) >= '1' && answer.charAt(0) < '1' + World.ROADS)
+            road = answer.charAt(0) - '1';
+        else {
+            window.addTextToWindow("Yikes! There's no road like that.\n", TextColor.WHITE);
+            return;
+        }
 
-        currentTown = new Town(shop, toughness, breakChance, WINDOW);
+        if (currentTown.leaveTown(player)) {
+            boolean revisit = world.getRoad(currentTownId, road) >= 0;
+            currentTownId = world.travel(currentTownId, road);
+            currentTown = world.getTown(currentTownId);
+            if (revisit && events.isActive())
+                events.publish(new GameEvent.TownRevisited(currentTown.getTreasure(), currentTown.getTerrain(),
+                        currentTown.isToughTown(), currentTown.isAlreadySearched(), currentTown.isDug()));
+            currentTown.hunterArrives(player);
+            policy.enteredTown(currentTown);
+        }
+    }
 
-        currentTown.hunterArrives(hunter);
+    /**
+     * Plays turns until the player wins, loses or chooses to exit.
+     *
+     * @return The outcome of the game.
+     */
+    private GameResult showMenu() {
+        GameResult.Outcome outcome;
+        do {
+            outcome = playTurn();
+        } while (outcome == null);
+        GameResult result = new GameResult(outcome, hunter.getGold(), hunter.getTreasureCount(), turns);
+        // test modes hand out gold and items, so their games are not ranked
+        if (leaderboard != null && !testMode && outcome != GameResult.Outcome.QUIT
+                && leaderboard.record(hunter.getHunterName(), difficulty, result))
+            window.addTextToWindow("\nYou made the " + difficulty.getName() + " leaderboard!", TextColor.GREEN);
+        if (saveFile != null && outcome != GameResult.Outcome.QUIT)
+            deleteSave();
+        window.flush();
+        events.awaitDelivery();
+        return result;
     }
 
     /**
      * Displays the menu and receives the choice from the user.<p>
      * The choice is sent to the processChoice() method for parsing.<p>
-     * This method will loop until the user chooses to exit.
-     */
-    private void showMenu() {
-        String choice = "";
-        while (!choice.equals("x")) {
-
-            //Check for win
-            if (hunter.emptyPositionInTreasureInventory() == -1) {
-                WINDOW.addTextToWindow("\n", Color.white);
-                WINDOW.addTextToWindow("You Win!\n", Color.blue);
-                WINDOW.addTextToWindow("You found all 3 treasures!", Color.white);
-                break;
-            }
+     * Once a game is under way a turn allocates nothing, so long headless sessions create no garbage.
+     *
+     * @return How the game ended, or null if it goes on.
+     */
+    GameResult.Outcome playTurn() {
+        //Check for win
+        if (hunter.hasAllTreasures()) {
+            window.addTextToWindow("\n", TextColor.WHITE);
+            window.addTextToWindow("You Win!\n", TextColor.BLUE);
+            window.addTextToWindow("You found all 3 treasures!", TextColor.WHITE);
+            return GameResult.Outcome.WIN;
+        }
 
-            WINDOW.addTextToWindow("\n", Color.white);
-            //System.out.println(currentTown.getLatestNews());
+        window.addTextToWindow("\n", TextColor.WHITE);
+        //System.out.println(currentTown.getLatestNews());
 
-            //Check for loss
-            if (hunter.getGold() < 0) {
-                WINDOW.addTextToWindow("\n", Color.white);
-                WINDOW.addTextToWindow("GAME OVER\n", Color.red);
-                WINDOW.addTextToWindow("You ran out of gold!", Color.white);
-                break;
-            }
+        //Check for loss
+        if (hunter.getGold() < 0) {
+            window.addTextToWindow("\n", TextColor.WHITE);
+            window.addTextToWindow("GAME OVER\n", TextColor.RED);
+            window.addTextToWindow("You ran out of gold!", TextColor.WHITE);
+            return GameResult.Outcome.LOSS;
+        }
 
-            WINDOW.addTextToWindow("***\n", Color.white);
-            hunter.infoString();
-            currentTown.infoString();
-            WINDOW.addTextToWindow("(B)uy something at the shop.\n", Color.white);
-            WINDOW.addTextToWindow("(S)ell something at the shop.\n", Color.white);
-            WINDOW.addTextToWindow("(E)xplore surrounding terrain.\n", Color.white);
-            WINDOW.addTextToWindow("(M)ove on to a different town.\n", Color.white);
-            WINDOW.addTextToWindow("(L)ook for trouble!\n", Color.white);
-            WINDOW.addTextToWindow("(H)unt for treasure\n", Color.white);
-            WINDOW.addTextToWindow("(D)ig for gold\n", Color.white);
-            WINDOW.addTextToWindow("Give up the hunt and e(X)it.\n", Color.white);
-            WINDOW.addTextToWindow("\n", Color.white);
-            WINDOW.addTextToWindow("What's your next move?", Color.white);
-            choice = SCANNER.nextLine().toLowerCase();
+        window.addTextToWindow("***\n", TextColor.WHITE);
+        hunter.infoString();
+        currentTown.infoString(window);
+        window.addTextToWindow(MENU, TextColor.WHITE);
+        String choice = ask(Prompt.MENU);
+        turns++;
+        if (!events.hasSubscribers()) {
+            processChoice(choice); // reading the clock costs more than most turns
+        }
+        else {
+            long start = System.nanoTime();
             processChoice(choice);
+            events.publish(new GameEvent.TurnPlayed(choice, System.nanoTime() - start));
         }
+        return choice.equals("x") ? GameResult.Outcome.QUIT : null;
+    }
+
+    /**
+     * Shows the player everything from the current turn and waits for their answer.
+     *
+     * @param prompt The question being asked.
+     * @return The player's answer in lower case, which is the answer itself when it already was.
+     */
+    private String ask(Prompt prompt) {
+        events.flush();
+        window.flush();
+        return policy.nextLine(prompt, hunter).toLowerCase();
     }
 
     /**
@@ -177,29 +443,59 @@ public class TreasureHunter {
      * @param choice The action to process.
      */
     private void processChoice(String choice) {
-        WINDOW.clear();
+        window.clear();
         switch (choice) {
-            case "b", "s" -> currentTown.enterShop(choice);
-            case "e" -> currentTown.getTerrain().infoString();
+            case "b", "s" -> currentTown.enterShop(player, choice);
+            case "e" -> currentTown.getTerrain().infoString(window);
             case "m" -> {
-                if (currentTown.leaveTown()) {
+                if (world != null)
+                    travel();
+                else if (currentTown.leaveTown(player)) {
                     // This town is going away so print its news ahead of time.
                     //System.out.println(currentTown.getLatestNews());
                     enterTown();
                 }
             }
-            case "l" -> currentTown.lookForTrouble();
-            case "h" -> currentTown.huntForTreasure();
-            case "d" -> currentTown.digForGold();
+            case "l" -> currentTown.lookForTrouble(player);
+            case "h" -> currentTown.huntForTreasure(player);
+            case "d" -> currentTown.digForGold(player);
             case "x" -> {
-                WINDOW.clear();
-                WINDOW.addTextToWindow("Fare thee well, " + hunter.getHunterName() + "!\n", Color.white);
-                WINDOW.addTextToWindow("Close the window to exit...", Color.white);
+                window.clear();
+                window.addTextToWindow("Fare thee well, " + hunter.getHunterName() + "!\n", TextColor.WHITE);
+                if (saveFile != null)
+                    saveGame();
+                window.addTextToWindow("Close the window to exit...", TextColor.WHITE);
             }
             default -> {
-                WINDOW.clear();
-                WINDOW.addTextToWindow("Yikes! That's an invalid option! Try again.\n\n", Color.white);
+                window.clear();
+                window.addTextToWindow("Yikes! That's an invalid option! Try again.\n\n", TextColor.WHITE);
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Deletes the save file of a game that has finished, so it is not offered again.
+     */
+    private void deleteSave() {
+        try {
+            Files.deleteIfExists(saveFile);
+        }
+        catch (IOException e) {
+            window.addTextToWindow("\nYour old save could not be deleted; delete " + saveFile
+                    + " so this finished game is not resumed.\n", TextColor.RED);
+        }
+    }
+
+    /**
+     * Writes the game to the save file.
+     */
+    private void saveGame() {
+        try {
+            Files.write(saveFile, GameSnapshot.save(this));
+            window.addTextToWindow("Your progress has been saved.\n", TextColor.GREEN);
+        }
+        catch (IOException e) {
+            window.addTextToWindow("Your progress could not be saved.\n", TextColor.RED);
+        }
+    }
+}
@@ -1,6 +1,79 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
 public class TreasureHunterRunner {
-    public static void main(String[] args) {
-        TreasureHunter game = new TreasureHunter();
-        game.play();
+    /**
+     * Arguments: [--seed N] [--save FILE] [--world TOWNS] [--leaderboard FILE] [--market] [--ansi] [--script FILE]<p>
+     * A seed replays the same game for the same input. With a save file, an existing save is resumed
+     * and the game is saved there when the player exits; a save that cannot be read starts a new game instead. With a world, towns can be revisited, and up to
+     * TOWNS of them are kept in memory. With a leaderboard, won and lost games are ranked in it.
+     * With --market, shop prices move with what is bought and sold. With --ansi, or when Java runs headless,
+     * the game is played in the terminal instead of a window, and AWT is never loaded. With a script, the
+     * answers are read from the file, or from standard input if FILE is -, all at once instead of from the
+     * keyboard, and games are played one after another until the script runs out.
+     */
+    public static void main(String[] args) throws IOException {
+        SplittableRandom rng = new SplittableRandom();
+        Path saveFile = null;
+        int worldSize = 0;
+        Leaderboard leaderboard = null;
+        boolean market = false;
+        boolean ansi = Boolean.getBoolean("java.awt.headless");
+        ScriptPolicy script = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seed" -> rng = new SplittableRandom(Long.parseLong(args[++i]));
+                case "--save" -> saveFile = Path.of(args[++i]);
+                case "--world" -> worldSize = Integer.parseInt(args[++i]);
+                case "--leaderboard" -> leaderboard = new Leaderboard(Path.of(args[++i]));
+                case "--market" -> market = true;
+                case "--ansi" -> ansi = true;
+                case "--script" -> {
+                    String file = args[++i];
+                    if (file.equals("-"))
+                        script = ScriptPolicy.read(System.in);
+                    else {
+                        try (InputStream in = Files.newInputStream(Path.of(file))) {
+                            script = ScriptPolicy.read(in);
+                        }
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        OutputSink window = ansi ? new AnsiOutput(new OutputStreamWriter(System.out)) : new OutputWindow();
+        DecisionPolicy policy = script != null ? script : new ConsolePolicy();
+        boolean resume = saveFile != null && Files.exists(saveFile);
+        do {
+            TreasureHunter game = null;
+            if (resume) {
+                try {
+                    game = GameSnapshot.restore(Files.readAllBytes(saveFile), window, policy, rng);
+                }
+                catch (IllegalArgumentException e) {
+                    window.addTextToWindow("Your saved game could not be read (" + e.getMessage()
+                            + "), so a new game is starting.\n", TextColor.RED);
+                    resume = false;
+                }
+            }
+            if (game == null)
+                game = new TreasureHunter(window, policy, rng);
+            game.setSaveFile(saveFile);
+            game.setWorldSize(worldSize);
+            game.setLeaderboard(leaderboard);
+            game.setGlobalMarket(market);
+            if (resume)
+                game.resume();
+            else
+                game.play();
+            resume = false;
+        } while (script != null && script.hasNext());
+        if (leaderboard != null)
+            leaderboard.close();
     }
-}
\ No newline at end of file
+}
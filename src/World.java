@@ -0,0 +1,171 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * The World class is a map of towns joined by roads, so a hunter can go back to a town they have already been to.<p>
+ * Every town has ROADS roads leading out of it across its surrounding terrain. A road stays unexplored until someone
+ * takes it, which is when the town at the other end is made; the first road out of every new town leads back.<p>
+ * Only the most recently visited towns are kept as Town objects. Older ones are evicted to two bytes each, in the
+ * same encoding GameSnapshot uses for the current town, and rebuilt when they are visited again. That keeps a world
+ * of millions of towns to a few bytes per town plus the live cache.<p>
+ * Observers hear about a town when it is made, and again, with its searched and dug state, whenever it is revisited,
+ * so a journal can always tell which town later actions happened in.
+ */
+
+public class World {
+    /**
+     * The number of roads leading out of every town.
+     */
+    public static final int ROADS = 3;
+
+    /**
+     * The id of the town every world starts in.
+     */
+    public static final int START = 0;
+
+    private static final int UNEXPLORED = -1;
+
+    // instance variables
+    private final Supplier<Town> generator;
+    private final IntFunction<Town> restorer;
+    private final Map<Integer, Town> loaded;
+    private final Map<Integer, Town> towns;
+
+    private short[] evicted;
+    private int[] roads;
+    private int size;
+
+    /**
+     * Makes an empty world. Call start() to put the first town in it.
+     *
+     * @param maxLoadedTowns The number of towns kept as Town objects before the least recently visited is evicted.
+     * @param generator Makes a brand-new random town.
+     * @param restorer Rebuilds an evicted town from its encoding.
+     */
+    public World(int maxLoadedTowns, Supplier<Town> generator, IntFunction<Town> restorer) {
+        if (maxLoadedTowns < 1)
+            throw new IllegalArgumentException("At least one town must stay loaded");
+        this.generator = generator;
+        this.restorer = restorer;
+        loaded = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Town> eldest) {
+                if (size() <= maxLoadedTowns)
+                    return false;
+                evicted[eldest.getKey()] = (short) GameSnapshot.encodeTown(eldest.getValue());
+                towns.remove(eldest.getKey());
+                return true;
+            }
+        };
+        // the same towns as loaded, for looking one up without making it the most recently visited
+        towns = new HashMap<>();
+        evicted = new short[16];
+        roads = new int[16 * ROADS];
+    }
+
+    /**
+     * Puts the starting town in an empty world.
+     *
+     * @param town The town the hunter starts in.
+     * @return The town's id, START.
+     */
+    public int start(Town town) {
+        if (size != 0)
+            throw new IllegalStateException("The world has already started");
+        return addTown(UNEXPLORED, town);
+    }
+
+    // accessors
+    public int size() {
+        return size;
+    }
+
+    public int getLoadedCount() {
+        return loaded.size();
+    }
+
+    /**
+     * @param id A town in this world.
+     * @return The town, rebuilt from its encoding if it had been evicted.
+     */
+    public Town getTown(int id) {
+        Town town = loaded.get(id);
+        if (town == null) {
+            checkTown(id);
+            town = restorer.apply(evicted[id]);
+            towns.put(id, town);
+            loaded.put(id, town);
+        }
+        return town;
+    }
+
+    /**
+     * Describes a town without loading it or changing which town is evicted next.
+     *
+     * @param id A town in this world.
+     * @return The town in the encoding of GameSnapshot.encodeTown.
+     */
+    public int peekTown(int id) {
+        Town town = towns.get(id);
+        if (town != null)
+            return GameSnapshot.encodeTown(town);
+        checkTown(id);
+        return evicted[id];
+    }
+
+    /**
+     * @param id A town in this world.
+     * @param road Which of the town's roads, from 0 to ROADS - 1.
+     * @return The town at the other end, or -1 if nobody has taken the road yet.
+     */
+    public int getRoad(int id, int road) {
+        checkTown(id);
+        return roads[id * ROADS + road];
+    }
+
+    /**
+     * Follows a road, making the town at the other end if the road has never been taken.
+     *
+     * @param id The town being left.
+     * @param road Which of its roads to take, from 0 to ROADS - 1.
+     * @return The town arrived at.
+     */
+    public int travel(int id, int road) {
+        int destination = getRoad(id, road);
+        if (destination == UNEXPLORED) {
+            destination = addTown(id, generator.get());
+            roads[id * ROADS + road] = destination;
+        }
+        return destination;
+    }
+
+    /**
+     * Adds a town and links its first road back to where it was reached from.
+     *
+     * @param from The town it was reached from, or -1 for the starting town.
+     * @param town The town.
+     * @return The new town's id.
+     */
+    private int addTown(int from, Town town) {
+        int id = size;
+        if (id == evicted.length) {
+            evicted = Arrays.copyOf(evicted, id * 2);
+            roads = Arrays.copyOf(roads, id * 2 * ROADS);
+        }
+        Arrays.fill(roads, id * ROADS, (id + 1) * ROADS, UNEXPLORED);
+        roads[id * ROADS] = from;
+        size++;
+        towns.put(id, town);
+        loaded.put(id, town);
+        return id;
+    }
+
+    private void checkTown(int id) {
+        if (id < 0 || id >= size)
+            throw new IllegalArgumentException("No such town: " + id);
+    }
+}